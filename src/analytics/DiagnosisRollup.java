@@ -0,0 +1,273 @@
+package analytics;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.TreatmentRecord;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Daily treatment counts per normalized diagnosis, with spike detection against an exponentially weighted
+// baseline. Each TREATMENT_RECORDED event touches one diagnosis: it bumps that day's bucket and checks the
+// count against the baseline. A day is folded into the baseline when the next day's first case arrives,
+// so nothing ever rescans the treatment repository.
+public class DiagnosisRollup implements DomainEventListener {
+    private static final int RETAINED_DAYS = 56; // eight weeks of daily buckets per diagnosis
+    private static final double BASELINE_ALPHA = 2.0 / (14 + 1); // EWMA over roughly two weeks
+    private static final int MIN_BASELINE_DAYS = 7;
+    private static final int MIN_ALERT_COUNT = 5;
+    private static final double ALERT_SIGMAS = 3.0;
+    private static final int RECENT_ALERT_LIMIT = 50;
+
+    private final Map<String, DiagnosisSeries> series; // normalized diagnosis -> its daily buckets and baseline
+    private final Deque<SpikeAlert> recentAlerts;
+    private final Consumer<SpikeAlert> alertListener;
+    private long firstDay = Long.MIN_VALUE; // epoch day of the first treatment seen
+
+    public DiagnosisRollup() {
+        this(alert -> { });
+    }
+
+    public DiagnosisRollup(Consumer<SpikeAlert> alertListener) {
+        this.series = new HashMap<>();
+        this.recentAlerts = new ArrayDeque<>();
+        this.alertListener = alertListener;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.TREATMENT_RECORDED) {
+            record(event.getTreatment());
+        }
+    }
+
+    public void record(TreatmentRecord treatment) {
+        String diagnosis = normalize(treatment.getDiagnosis());
+        if (diagnosis.isEmpty()) {
+            return;
+        }
+        SpikeAlert alert;
+        synchronized (this) {
+            long day = treatment.getDate().toEpochDay();
+            if (firstDay == Long.MIN_VALUE) {
+                firstDay = day;
+            }
+            // A diagnosis seen for the first time has had zero cases every day since tracking began
+            DiagnosisSeries diagnosisSeries = series.computeIfAbsent(diagnosis,
+                    key -> new DiagnosisSeries(key, Math.min(firstDay, day)));
+            alert = diagnosisSeries.add(day);
+            if (alert != null) {
+                recentAlerts.addFirst(alert);
+                if (recentAlerts.size() > RECENT_ALERT_LIMIT) {
+                    recentAlerts.removeLast();
+                }
+            }
+        }
+        if (alert != null) {
+            alertListener.accept(alert);
+        }
+    }
+
+    // Cases per diagnosis on one day, most frequent first
+    public synchronized List<DiagnosisCount> getDailyCounts(LocalDate day) {
+        return countsBetween(day, day);
+    }
+
+    // Cases per diagnosis in the Monday-to-Sunday week containing the day, most frequent first
+    public synchronized List<DiagnosisCount> getWeeklyCounts(LocalDate day) {
+        LocalDate monday = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return countsBetween(monday, monday.plusDays(6));
+    }
+
+    public synchronized int getCount(String diagnosis, LocalDate day) {
+        DiagnosisSeries diagnosisSeries = series.get(normalize(diagnosis));
+        return diagnosisSeries == null ? 0 : diagnosisSeries.countOn(day.toEpochDay());
+    }
+
+    public synchronized List<SpikeAlert> getRecentAlerts() {
+        return new ArrayList<>(recentAlerts);
+    }
+
+    // Lower case, punctuation dropped, whitespace collapsed: "Influenza A." and "influenza  a" are one diagnosis
+    public static String normalize(String diagnosis) {
+        if (diagnosis == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(diagnosis.length());
+        boolean space = false;
+        for (int i = 0; i < diagnosis.length(); i++) {
+            char c = Character.toLowerCase(diagnosis.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private List<DiagnosisCount> countsBetween(LocalDate from, LocalDate to) {
+        List<DiagnosisCount> result = new ArrayList<>();
+        for (DiagnosisSeries diagnosisSeries : series.values()) {
+            int total = 0;
+            for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+                total += diagnosisSeries.countOn(day);
+            }
+            if (total > 0) {
+                result.add(new DiagnosisCount(diagnosisSeries.diagnosis, total));
+            }
+        }
+        result.sort(Comparator.comparingInt(DiagnosisCount::getCount).reversed()
+                .thenComparing(DiagnosisCount::getDiagnosis));
+        return result;
+    }
+
+    // Ring of daily buckets plus the running baseline of one diagnosis
+    private static class DiagnosisSeries {
+        private final String diagnosis;
+        private final int[] counts = new int[RETAINED_DAYS];
+        private final long[] days = new long[RETAINED_DAYS];
+        private long currentDay; // latest day with a bucket; every earlier day is already in the baseline
+        private double mean;
+        private double variance;
+        private long baselineDays;
+        private long alertedDay = Long.MIN_VALUE;
+
+        DiagnosisSeries(String diagnosis, long trackingStartDay) {
+            this.diagnosis = diagnosis;
+            this.currentDay = trackingStartDay;
+            Arrays.fill(days, Long.MIN_VALUE);
+        }
+
+        SpikeAlert add(long day) {
+            if (day > currentDay) {
+                rollTo(day);
+            }
+            int slot = (int) Math.floorMod(day, (long) RETAINED_DAYS);
+            if (days[slot] != day) {
+                if (days[slot] > day) {
+                    return null; // older than the retained history
+                }
+                days[slot] = day;
+                counts[slot] = 0;
+            }
+            int count = ++counts[slot];
+
+            // Only today's bucket is judged; late back-dated cases just land in their bucket
+            if (day != currentDay || alertedDay == day || baselineDays < MIN_BASELINE_DAYS
+                    || count < MIN_ALERT_COUNT) {
+                return null;
+            }
+            // Poisson-like floor so a diagnosis that is always near zero doesn't alert on a couple of cases
+            double spread = Math.max(Math.sqrt(variance), Math.sqrt(Math.max(mean, 1.0)));
+            double threshold = mean + ALERT_SIGMAS * spread;
+            if (count <= threshold) {
+                return null;
+            }
+            alertedDay = day;
+            return new SpikeAlert(diagnosis, LocalDate.ofEpochDay(day), count, mean, threshold);
+        }
+
+        int countOn(long day) {
+            int slot = (int) Math.floorMod(day, (long) RETAINED_DAYS);
+            return days[slot] == day ? counts[slot] : 0;
+        }
+
+        // Fold every finished day into the EWMA baseline. Quiet days count as zero.
+        private void rollTo(long day) {
+            long gap = Math.min(day - currentDay, 365);
+            for (long d = day - gap; d < day; d++) {
+                fold(countOn(d));
+            }
+            currentDay = day;
+        }
+
+        private void fold(int count) {
+            double delta = count - mean;
+            mean += BASELINE_ALPHA * delta;
+            variance = (1 - BASELINE_ALPHA) * (variance + BASELINE_ALPHA * delta * delta);
+            baselineDays++;
+        }
+    }
+
+    // Cases of one diagnosis over a period
+    public static class DiagnosisCount {
+        private String diagnosis;
+        private int count;
+
+        public DiagnosisCount(String diagnosis, int count) {
+            this.diagnosis = diagnosis;
+            this.count = count;
+        }
+
+        public String getDiagnosis() {
+            return diagnosis;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return diagnosis + ": " + count;
+        }
+    }
+
+    // Raised once per diagnosis and day when the day's cases clear the baseline threshold
+    public static class SpikeAlert {
+        private String diagnosis;
+        private LocalDate date;
+        private int count;
+        private double baseline;
+        private double threshold;
+
+        public SpikeAlert(String diagnosis, LocalDate date, int count, double baseline, double threshold) {
+            this.diagnosis = diagnosis;
+            this.date = date;
+            this.count = count;
+            this.baseline = baseline;
+            this.threshold = threshold;
+        }
+
+        public String getDiagnosis() {
+            return diagnosis;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getBaseline() {
+            return baseline;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SPIKE %s on %s: %d cases (baseline %.1f/day, threshold %.1f)",
+                    diagnosis, date, count, baseline, threshold);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package analytics;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Prescription;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Most prescribed drugs over the last hour, day and month, fed by PRESCRIPTION_CREATED events.
+// Each window is a ring of count-min sketches with a bounded candidate heap, so memory and query time
+// stay fixed however many prescriptions are written. Counts are estimates that can only run high.
+public class DrugUtilizationTracker implements DomainEventListener {
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int SKETCH_DEPTH = 4;
+    public static final int MAX_TOP_K = 50;
+
+    public enum Window {
+        LAST_HOUR(TimeUnit.MINUTES.toMillis(1), 60),
+        LAST_DAY(TimeUnit.HOURS.toMillis(1), 24),
+        LAST_MONTH(TimeUnit.DAYS.toMillis(1), 30);
+
+        private final long bucketMillis;
+        private final int bucketCount;
+
+        Window(long bucketMillis, int bucketCount) {
+            this.bucketMillis = bucketMillis;
+            this.bucketCount = bucketCount;
+        }
+    }
+
+    private final Map<Window, SlidingWindowHeavyHitters> windows;
+
+    public DrugUtilizationTracker() {
+        this.windows = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            // Keep several times more candidates than we ever report, so a rising drug isn't squeezed out
+            windows.put(window, new SlidingWindowHeavyHitters(window.bucketMillis, window.bucketCount,
+                    SKETCH_WIDTH, SKETCH_DEPTH, MAX_TOP_K * 4));
+        }
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.PRESCRIPTION_CREATED) {
+            record(event.getPrescription(), event.getTimestampMillis());
+        }
+    }
+
+    public void record(Prescription prescription, long timestampMillis) {
+        String drugName = prescription.getDrugName().trim();
+        String key = drugName.toLowerCase(Locale.ROOT);
+        for (SlidingWindowHeavyHitters window : windows.values()) {
+            window.add(key, drugName, timestampMillis);
+        }
+    }
+
+    public List<SlidingWindowHeavyHitters.HeavyHitter> getTopDrugs(Window window, int k) {
+        return getTopDrugs(window, k, System.currentTimeMillis());
+    }
+
+    public List<SlidingWindowHeavyHitters.HeavyHitter> getTopDrugs(Window window, int k, long nowMillis) {
+        if (window == null) {
+            throw new IllegalArgumentException("Window cannot be null");
+        }
+        if (k <= 0 || k > MAX_TOP_K) {
+            throw new IllegalArgumentException("K must be between 1 and " + MAX_TOP_K + ". Provided: " + k);
+        }
+        return windows.get(window).top(k, nowMillis);
+    }
+}
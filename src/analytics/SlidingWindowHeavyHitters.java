@@ -0,0 +1,158 @@
+package analytics;
+
+import util.CountMinSketch;
+import util.Hashing;
+import util.IndexedMinHeap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Approximate top-K over a sliding time window in bounded memory.
+// The window is a ring of count-min sketches, one per sub-interval; a key's windowed count is the row-wise sum
+// over the live sub-intervals. A bounded candidate heap remembers the keys most likely to be heavy hitters.
+// Memory is buckets * width * depth ints plus the candidates, however many events arrive.
+public class SlidingWindowHeavyHitters {
+    private final long bucketMillis;
+    private final CountMinSketch[] buckets;
+    private final long[] bucketEpochs; // which sub-interval each ring slot currently holds
+    private final int candidateCapacity;
+    private final IndexedMinHeap<String> candidates; // key -> windowed estimate when last seen
+    private final Map<String, String> displayNames; // candidate key -> name as last written
+
+    public SlidingWindowHeavyHitters(long bucketMillis, int bucketCount, int sketchWidth, int sketchDepth,
+                                     int candidateCapacity) {
+        if (bucketMillis <= 0 || bucketCount <= 0 || candidateCapacity <= 0) {
+            throw new IllegalArgumentException("Bucket length, bucket count and candidate capacity must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = new CountMinSketch[bucketCount];
+        this.bucketEpochs = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(sketchWidth, sketchDepth);
+            bucketEpochs[i] = Long.MIN_VALUE;
+        }
+        this.candidateCapacity = candidateCapacity;
+        this.candidates = new IndexedMinHeap<>(candidateCapacity + 1);
+        this.displayNames = new HashMap<>();
+    }
+
+    public synchronized void add(String key, String displayName, long timestampMillis) {
+        CountMinSketch bucket = bucketFor(timestampMillis);
+        if (bucket == null) {
+            return; // older than the window
+        }
+        long hash = Hashing.hash64(key);
+        bucket.add(hash, 1);
+
+        long estimate = estimate(hash, timestampMillis);
+        if (candidates.contains(key)) {
+            // Already tracked: store the fresh windowed estimate, which drops as old buckets leave the window
+            candidates.put(key, estimate);
+            displayNames.put(key, displayName);
+            return;
+        }
+        if (candidates.size() < candidateCapacity) {
+            candidates.put(key, estimate);
+            displayNames.put(key, displayName);
+        } else if (estimate > freshMinimum(timestampMillis)) {
+            displayNames.remove(candidates.peek());
+            candidates.remove(candidates.peek());
+            candidates.put(key, estimate);
+            displayNames.put(key, displayName);
+        }
+    }
+
+    // The k keys with the highest windowed estimate as of nowMillis, highest first
+    public synchronized List<HeavyHitter> top(int k, long nowMillis) {
+        List<HeavyHitter> result = new ArrayList<>();
+        for (Map.Entry<String, String> candidate : displayNames.entrySet()) {
+            long estimate = estimate(Hashing.hash64(candidate.getKey()), nowMillis);
+            // Refresh the heap too, so keys that fell out of the window stop blocking newcomers
+            candidates.put(candidate.getKey(), estimate);
+            if (estimate > 0) {
+                result.add(new HeavyHitter(candidate.getValue(), estimate));
+            }
+        }
+        result.sort(Comparator.comparingLong(HeavyHitter::getEstimatedCount).reversed()
+                .thenComparing(HeavyHitter::getName));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    // Smallest candidate priority, after bringing the weakest candidates up to date. A candidate that has had no
+    // events lately still holds the estimate from its last event, so refresh the minimum until it is current.
+    // Each refresh only lowers a priority, so this stops after at most one pass over the stale candidates.
+    private long freshMinimum(long nowMillis) {
+        while (true) {
+            String weakest = candidates.peek();
+            long stored = candidates.peekPriority();
+            long fresh = estimate(Hashing.hash64(weakest), nowMillis);
+            if (fresh >= stored) {
+                return stored;
+            }
+            candidates.put(weakest, fresh);
+        }
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * buckets.length;
+    }
+
+    // Windowed estimate: sum each row over the live buckets, then take the smallest row
+    private long estimate(long hash, long nowMillis) {
+        long currentEpoch = Math.floorDiv(nowMillis, bucketMillis);
+        long oldestEpoch = currentEpoch - buckets.length + 1;
+        int depth = buckets[0].getDepth();
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long sum = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                if (bucketEpochs[i] >= oldestEpoch && bucketEpochs[i] <= currentEpoch) {
+                    sum += buckets[i].cell(hash, row);
+                }
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private CountMinSketch bucketFor(long timestampMillis) {
+        long epoch = Math.floorDiv(timestampMillis, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+        if (bucketEpochs[slot] > epoch) {
+            return null;
+        }
+        if (bucketEpochs[slot] != epoch) {
+            // The slot still holds a sub-interval that has slid out of the window
+            buckets[slot].clear();
+            bucketEpochs[slot] = epoch;
+        }
+        return buckets[slot];
+    }
+
+    // One entry of a top-K answer
+    public static class HeavyHitter {
+        private String name;
+        private long estimatedCount;
+
+        public HeavyHitter(String name, long estimatedCount) {
+            this.name = name;
+            this.estimatedCount = estimatedCount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: ~%d", name, estimatedCount);
+        }
+    }
+}
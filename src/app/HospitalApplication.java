@@ -1,10 +1,23 @@
 package app;
 
+import analytics.DiagnosisRollup;
+import analytics.DrugUtilizationTracker;
+import analytics.SlidingWindowHeavyHitters;
+import analytics.UniquePatientTracker;
+import event.EventBus;
 import model.*;
+import report.CensusReportEngine;
+import search.ClinicalTextIndex;
+import notification.FileReminderSink;
 import repository.*;
 import service.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -14,8 +27,14 @@ public class HospitalApplication {
     private StaffRepository staffRepository;
     private PatientRepository patientRepository;
     private AppointmentRespository appointmentRepository;
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+    private WaitlistRepository waitlistRepository;
     private PrescriptionRepository prescriptionRepository;
     private TreatmentRepository treatmentRepository;
+    private DrugInteractionRepository drugInteractionRepository;
+
+    // Domain events from the services
+    private EventBus eventBus;
 
     // All services
     private AuthorizationService authService;
@@ -24,9 +43,22 @@ public class HospitalApplication {
     private AppointmentService appointmentService;
     private PrescriptionService prescriptionService;
     private TreatmentService treatmentService;
-
-    // Current logged-in staff
-    private Staff currentStaff;
+    private SessionService sessionService;
+    private DoctorDashboardService doctorDashboardService;
+    private NoShowScheduler noShowScheduler;
+    private SeriesMaterializer seriesMaterializer;
+    private ReminderService reminderService;
+    private DoctorLoadBalancer doctorLoadBalancer;
+    private OperationalCounters operationalCounters;
+    private DrugUtilizationTracker drugUtilizationTracker;
+    private DiagnosisRollup diagnosisRollup;
+    private CensusReportEngine censusReportEngine;
+    private UniquePatientTracker uniquePatientTracker;
+    private ClinicalTextIndex clinicalTextIndex;
+    private ClinicalSearchService clinicalSearchService;
+
+    // Token of the current logged-in staff session
+    private String sessionToken;
     private final Scanner scanner;
 
     public HospitalApplication() {
@@ -41,35 +73,92 @@ public class HospitalApplication {
         staffRepository = new StaffRepository();
         patientRepository = new PatientRepository();
         appointmentRepository = new AppointmentRespository();
+        appointmentSeriesRepository = new AppointmentSeriesRepository();
+        waitlistRepository = new WaitlistRepository();
         prescriptionRepository = new PrescriptionRepository();
         treatmentRepository = new TreatmentRepository();
+
+        drugInteractionRepository = new DrugInteractionRepository();
+        Path interactions = Paths.get("data", "drug-interactions.csv");
+        try {
+            drugInteractionRepository.loadFrom(interactions);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("⚠️  Could not load drug interactions from " + interactions
+                    + " (" + e.getMessage() + "). Only duplicate therapy will be checked.");
+        }
     }
 
     //Initialize all services
     private void initializeServices() {
+        eventBus = new EventBus();
         authService = new AuthorizationService();
 
-        staffService = new StaffService(staffRepository, authService);
+        doctorLoadBalancer = new DoctorLoadBalancer(staffRepository);
+        eventBus.subscribe("load-balancer", doctorLoadBalancer);
+
+        staffService = new StaffService(staffRepository, authService, doctorLoadBalancer);
 
         patientService = new PatientService(
                 patientRepository, staffRepository,
-                prescriptionRepository, treatmentRepository, authService
+                prescriptionRepository, treatmentRepository, authService, eventBus, doctorLoadBalancer
         );
 
         appointmentService = new AppointmentService(
-                appointmentRepository, patientRepository,
-                staffRepository, authService
+                appointmentRepository, appointmentSeriesRepository, waitlistRepository, patientRepository,
+                staffRepository, authService, eventBus
         );
 
         prescriptionService = new PrescriptionService(
                 prescriptionRepository, patientRepository,
-                staffRepository, authService
+                staffRepository, drugInteractionRepository, authService, eventBus
         );
 
         treatmentService = new TreatmentService(
                 treatmentRepository, patientRepository,
-                staffRepository, authService
+                staffRepository, authService, eventBus
         );
+
+        sessionService = new SessionService(staffRepository);
+        sessionService.start();
+
+        // Read models follow the event stream
+        doctorDashboardService = new DoctorDashboardService(staffRepository, authService);
+        eventBus.subscribe("doctor-dashboard", doctorDashboardService);
+
+        noShowScheduler = new NoShowScheduler(appointmentService);
+        eventBus.subscribe("no-show", noShowScheduler);
+        noShowScheduler.start();
+
+        reminderService = new ReminderService(new FileReminderSink(Paths.get("reminders.log")));
+        eventBus.subscribe("reminders", reminderService);
+        reminderService.start();
+
+        operationalCounters = new OperationalCounters(staffRepository, appointmentRepository,
+                prescriptionRepository, treatmentRepository);
+        operationalCounters.rebuild();
+        eventBus.subscribe("operational-counters", operationalCounters);
+
+        uniquePatientTracker = new UniquePatientTracker(staffRepository, appointmentRepository, treatmentRepository);
+        uniquePatientTracker.rebuild();
+        eventBus.subscribe("unique-patients", uniquePatientTracker);
+
+        drugUtilizationTracker = new DrugUtilizationTracker();
+        eventBus.subscribe("drug-utilization", drugUtilizationTracker);
+
+        diagnosisRollup = new DiagnosisRollup();
+        eventBus.subscribe("diagnosis-rollup", diagnosisRollup);
+
+        clinicalTextIndex = new ClinicalTextIndex();
+        eventBus.subscribe("clinical-search", clinicalTextIndex);
+        clinicalSearchService = new ClinicalSearchService(clinicalTextIndex, patientRepository,
+                treatmentRepository, authService);
+
+        censusReportEngine = new CensusReportEngine(patientRepository, staffRepository,
+                appointmentRepository, prescriptionRepository, treatmentRepository);
+
+        // Last, so every listener above is subscribed before materialized recurring visits are published
+        seriesMaterializer = new SeriesMaterializer(appointmentService);
+        seriesMaterializer.start();
     }
 
     //some initial data for testing
@@ -80,41 +169,35 @@ public class HospitalApplication {
                     "ADMIN001", "Administration");
             staffRepository.addStaff(admin);
 
-            // Set as current staff for seeding
-            currentStaff = admin;
-
             // Add doctors
-            Doctor doctor1 = staffService.onboardDoctor(currentStaff, "John Smith",
+            Doctor doctor1 = staffService.onboardDoctor(admin, "John Smith",
                     45, Gender.MALE, "Cardiology", "Cardiologist");
 
-            Doctor doctor2 = staffService.onboardDoctor(currentStaff, "Sarah Johnson",
+            Doctor doctor2 = staffService.onboardDoctor(admin, "Sarah Johnson",
                     38, Gender.FEMALE, "Pediatrics", "Pediatrician");
 
             // Add nurses
-            staffService.onboardNurse(currentStaff, "Mary Williams",
+            staffService.onboardNurse(admin, "Mary Williams",
                     30, Gender.FEMALE, "Emergency", "Ward A");
 
             // Add patients
-            Patient patient1 = patientService.onboardPatient(currentStaff,
+            Patient patient1 = patientService.onboardPatient(admin,
                     "Michael Brown", 42, Gender.MALE);
 
-            Patient patient2 = patientService.onboardPatient(currentStaff,
+            Patient patient2 = patientService.onboardPatient(admin,
                     "Emily Davis", 28, Gender.FEMALE);
 
             // Assign patients to doctors
-            patientService.assignPatientToDoctor(currentStaff,
+            patientService.assignPatientToDoctor(admin,
                     patient1.getPatientId(), doctor1.getStaffId());
 
-            patientService.assignPatientToDoctor(currentStaff,
+            patientService.assignPatientToDoctor(admin,
                     patient2.getPatientId(), doctor2.getStaffId());
 
             // Add medical history
-            patientService.addMedicalHistory(currentStaff, patient1.getPatientId(),
+            patientService.addMedicalHistory(admin, patient1.getPatientId(),
                     "History of hypertension");
 
-            // Reset current staff (user must login)
-            currentStaff = null;
-
         } catch (Exception e) {
             System.err.println("Error seeding data: " + e.getMessage());
         }
@@ -127,7 +210,7 @@ public class HospitalApplication {
         System.out.println("╚════════════════════════════════════════╝");
 
         while (true) {
-            if (currentStaff == null) {
+            if (currentStaff() == null) {
                 if (!login()) {
                     System.out.println("Exiting system...");
                     break;
@@ -163,9 +246,9 @@ public class HospitalApplication {
             return login();
         }
 
-        currentStaff = staff;
-        System.out.println("\n✅ Welcome, " + currentStaff.getName() +
-                " (" + currentStaff.getRole() + ")!");
+        sessionToken = sessionService.login(staff.getStaffId());
+        System.out.println("\n✅ Welcome, " + staff.getName() +
+                " (" + staff.getRole() + ")!");
         return true;
     }
 
@@ -181,6 +264,12 @@ public class HospitalApplication {
 
     // The Main menu
     private void showMainMenu() {
+        Staff currentStaff = currentStaff();
+        if (currentStaff == null) {
+            System.out.println("\n⌛ Session expired. Please log in again.");
+            return;
+        }
+
         System.out.println("\n========== MAIN MENU ==========");
         System.out.println("Logged in as: " + currentStaff.getName() +
                 " (" + currentStaff.getRole() + ")");
@@ -191,6 +280,9 @@ public class HospitalApplication {
         System.out.println("5. Treatment Management");
         System.out.println("6. View Patient History");
         System.out.println("7. Logout");
+        System.out.println("8. Operations Overview");
+        System.out.println("9. Monthly Census Report");
+        System.out.println("10. Unique Patients Seen");
         System.out.println("0. Exit System");
         System.out.print("Choose option: ");
 
@@ -204,6 +296,9 @@ public class HospitalApplication {
             case 5: treatmentManagementMenu(); break;
             case 6: viewPatientHistory(); break;
             case 7: logout(); break;
+            case 8: System.out.println(operationalCounters.getSummary(LocalDate.now())); break;
+            case 9: viewCensusReport(); break;
+            case 10: viewUniquePatients(); break;
             case 0: System.exit(0); break;
             default: System.out.println("❌ Invalid option!");
         }
@@ -270,7 +365,7 @@ public class HospitalApplication {
         String department = getStringInput("Department: ");
         String specialization = getStringInput("Specialization: ");
 
-        Doctor doctor = staffService.onboardDoctor(currentStaff, name, age,
+        Doctor doctor = staffService.onboardDoctor(currentStaff(), name, age,
                 gender, department, specialization);
         System.out.println("✅ Doctor onboarded successfully!");
         System.out.println(doctor.getDisplayInfo());
@@ -286,7 +381,7 @@ public class HospitalApplication {
         String department = getStringInput("Department: ");
         String ward = getStringInput("Ward: ");
 
-        Nurse nurse = staffService.onboardNurse(currentStaff, name, age,
+        Nurse nurse = staffService.onboardNurse(currentStaff(), name, age,
                 gender, department, ward);
         System.out.println("✅ Nurse onboarded successfully!");
         System.out.println(nurse.getDisplayInfo());
@@ -301,7 +396,7 @@ public class HospitalApplication {
         Gender gender = getGenderInput();
         String department = getStringInput("Department: ");
 
-        AdminStaff admin = staffService.onboardAdmin(currentStaff, name, age,
+        AdminStaff admin = staffService.onboardAdmin(currentStaff(), name, age,
                 gender, department);
         System.out.println("✅ Admin onboarded successfully!");
         System.out.println(admin.getDisplayInfo());
@@ -315,6 +410,7 @@ public class HospitalApplication {
         System.out.println("2. Onboard New Patient");
         System.out.println("3. Assign Patient to Doctor");
         System.out.println("4. Search Patient by Name");
+        System.out.println("5. Auto-Assign Patient to Least-Loaded Doctor");
         System.out.println("0. Back");
         System.out.print("Choose option: ");
 
@@ -326,6 +422,7 @@ public class HospitalApplication {
                 case 2: onboardPatient(); break;
                 case 3: assignPatientToDoctor(); break;
                 case 4: searchPatientByName(); break;
+                case 5: autoAssignPatient(); break;
                 case 0: return;
                 default: System.out.println("❌ Invalid option!");
             }
@@ -356,7 +453,20 @@ public class HospitalApplication {
         int age = getIntInput();
         Gender gender = getGenderInput();
 
-        Patient patient = patientService.onboardPatient(currentStaff, name, age, gender);
+        Patient patient;
+        try {
+            patient = patientService.onboardPatient(currentStaff(), name, age, gender);
+        } catch (DuplicatePatientException e) {
+            System.out.println("\n⚠️  This may be an existing patient:");
+            for (PatientService.PatientMatch match : e.getMatches()) {
+                System.out.println("  " + match);
+            }
+            if (!getStringInput("Register as a new patient anyway? (y/n): ").equalsIgnoreCase("y")) {
+                System.out.println("Patient not onboarded.");
+                return;
+            }
+            patient = patientService.onboardPatient(currentStaff(), name, age, gender, true);
+        }
         System.out.println("✅ Patient onboarded successfully!");
         System.out.println(patient.getDisplayInfo());
     }
@@ -376,12 +486,34 @@ public class HospitalApplication {
         System.out.println();
 
         String patientId = getStringInput("Patient ID: ");
+        Patient patient = patientRepository.findById(patientId);
+        if (patient == null) {
+            System.out.println("❌ Patient not found: " + patientId);
+            return;
+        }
+        // Remember what we showed, so a reassignment made by someone else meanwhile is reported, not overwritten
+        long version = patient.getVersion();
+        System.out.println("Currently assigned to: "
+                + (patient.getAssignedDoctorId() != null ? patient.getAssignedDoctorId() : "Not Assigned"));
         String doctorId = getStringInput("Doctor ID: ");
 
-        patientService.assignPatientToDoctor(currentStaff, patientId, doctorId);
+        patientService.assignPatientToDoctor(currentStaff(), patientId, doctorId, version);
         System.out.println("✅ Patient assigned successfully!");
     }
 
+    private void autoAssignPatient() throws AuthorizationService.UnauthorizedException {
+        String patientId = getStringInput("Patient ID: ");
+        String department = getStringInput("Department (blank for any): ");
+        String specialization = getStringInput("Specialization (blank for any): ");
+        System.out.print("Balance by (1) panel size or (2) upcoming appointments: ");
+        DoctorLoadBalancer.LoadMetric metric = getIntInput() == 2
+                ? DoctorLoadBalancer.LoadMetric.UPCOMING_APPOINTMENTS
+                : DoctorLoadBalancer.LoadMetric.PANEL_SIZE;
+
+        Doctor doctor = patientService.autoAssignPatient(currentStaff(), patientId, department, specialization, metric);
+        System.out.println("✅ Patient assigned to Dr. " + doctor.getName() + " (" + doctor.getStaffId() + ")");
+    }
+
     private void searchPatientByName() {
         String name = getStringInput("\nEnter name to search: ");
 
@@ -401,6 +533,14 @@ public class HospitalApplication {
         System.out.println("3. Complete Appointment");
         System.out.println("4. Cancel Appointment");
         System.out.println("5. View Doctor's Schedule");
+        System.out.println("6. View Doctor Dashboard");
+        System.out.println("7. Find Next Available Slots");
+        System.out.println("8. Reschedule Doctor's Appointments (Doctor Unavailable)");
+        System.out.println("9. Schedule Recurring Series");
+        System.out.println("10. Cancel Recurring Series or Visit");
+        System.out.println("11. Add Patient to Waitlist");
+        System.out.println("12. View Waitlist");
+        System.out.println("13. View Appointments in a Time Range");
         System.out.println("0. Back");
         System.out.print("Choose option: ");
 
@@ -413,6 +553,14 @@ public class HospitalApplication {
                 case 3: completeAppointment(); break;
                 case 4: cancelAppointment(); break;
                 case 5: viewDoctorSchedule(); break;
+                case 6: viewDoctorDashboard(); break;
+                case 7: findNextAvailableSlots(); break;
+                case 8: rescheduleDoctorAppointments(); break;
+                case 9: scheduleSeries(); break;
+                case 10: cancelSeries(); break;
+                case 11: joinWaitlist(); break;
+                case 12: viewWaitlist(); break;
+                case 13: viewAppointmentsInRange(); break;
                 case 0: return;
                 default: System.out.println("❌ Invalid option!");
             }
@@ -446,9 +594,11 @@ public class HospitalApplication {
 
         LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr,
                 DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        System.out.print("Duration (minutes): ");
+        int duration = getIntInput();
 
         Appointment apt = appointmentService.scheduleAppointment(
-                currentStaff, patientId, doctorId, dateTime);
+                currentStaff(), patientId, doctorId, dateTime, duration);
         System.out.println("✅ Appointment scheduled!");
         System.out.println(apt);
     }
@@ -456,15 +606,75 @@ public class HospitalApplication {
     private void completeAppointment() throws AuthorizationService.UnauthorizedException {
         String aptId = getStringInput("\nAppointment ID: ");
 
-        appointmentService.completeAppointment(currentStaff, aptId);
+        appointmentService.completeAppointment(currentStaff(), aptId);
         System.out.println("✅ Appointment marked as completed!");
     }
 
     private void cancelAppointment() throws AuthorizationService.UnauthorizedException {
         String aptId = getStringInput("\nAppointment ID: ");
 
-        appointmentService.cancelAppointment(currentStaff, aptId);
+        AppointmentService.CancellationResult result = appointmentService.cancelAndBackfill(currentStaff(), aptId);
+        if (!result.isCancelled()) {
+            System.out.println("❌ Appointment could not be cancelled.");
+            return;
+        }
         System.out.println("✅ Appointment cancelled!");
+        if (result.getBackfill() != null) {
+            System.out.println("Slot given to waitlisted patient: " + result.getBackfill());
+        }
+    }
+
+    private void viewAppointmentsInRange() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        LocalDateTime from = LocalDateTime.parse(getStringInput("From (yyyy-MM-dd HH:mm): "), formatter);
+        LocalDateTime to = LocalDateTime.parse(getStringInput("To (yyyy-MM-dd HH:mm): "), formatter);
+        String statusInput = getStringInput("Status (blank for any): ");
+        Appointment.AppointmentStatus status = statusInput.isEmpty()
+                ? null : Appointment.AppointmentStatus.valueOf(statusInput.toUpperCase());
+        String department = getStringInput("Department (blank for any): ");
+
+        String cursor = null;
+        int shown = 0;
+        do {
+            AppointmentRespository.Page page = appointmentService.findAppointmentsBetween(from, to, status,
+                    department, cursor, 20);
+            for (Appointment apt : page.getItems()) {
+                System.out.println(apt);
+            }
+            shown += page.getItems().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null && getStringInput("More? (y/n): ").equalsIgnoreCase("y"));
+
+        System.out.println("--- " + shown + " appointment(s) shown ---");
+    }
+
+    private void joinWaitlist() throws AuthorizationService.UnauthorizedException {
+        System.out.println("\n--- Add Patient to Waitlist ---");
+
+        String patientId = getStringInput("Patient ID: ");
+        String doctorId = getStringInput("Doctor ID (blank to wait for a department): ");
+        String department = doctorId.isEmpty() ? getStringInput("Department: ") : null;
+        WaitlistEntry.TriagePriority priority = WaitlistEntry.TriagePriority.fromString(
+                getStringInput("Triage priority (Emergent/Urgent/Semi-Urgent/Routine): "));
+        System.out.print("Duration (minutes): ");
+        int duration = getIntInput();
+
+        WaitlistEntry entry = appointmentService.joinWaitlist(currentStaff(), patientId, doctorId, department,
+                priority, duration);
+        System.out.println("✅ Added to waitlist!");
+        System.out.println(entry);
+    }
+
+    private void viewWaitlist() {
+        List<WaitlistEntry> waitlist = appointmentService.getWaitlist();
+        System.out.println("\n--- Waitlist (" + waitlist.size() + ") ---");
+        if (waitlist.isEmpty()) {
+            System.out.println("No patients waiting.");
+            return;
+        }
+        for (WaitlistEntry entry : waitlist) {
+            System.out.println(entry);
+        }
     }
 
     private void viewDoctorSchedule() {
@@ -487,6 +697,96 @@ public class HospitalApplication {
         }
     }
 
+    private void viewDoctorDashboard() throws AuthorizationService.UnauthorizedException {
+        String doctorId = getStringInput("\nDoctor ID: ");
+
+        DoctorDashboardService.DoctorDashboard dashboard =
+                doctorDashboardService.getDashboard(currentStaff(), doctorId);
+        System.out.println(dashboard);
+    }
+
+    private void findNextAvailableSlots() {
+        System.out.println("\n--- Find Next Available Slots ---");
+
+        String department = getStringInput("Department (blank to skip): ");
+        String specialization = getStringInput("Specialization (blank to skip): ");
+        System.out.print("Duration (minutes): ");
+        int duration = getIntInput();
+        System.out.print("Number of slots: ");
+        int count = getIntInput();
+
+        List<AppointmentService.AvailableSlot> slots = appointmentService.findNextAvailableSlots(
+                department, specialization, LocalDateTime.now(), duration, count);
+        System.out.println("\n========== AVAILABLE SLOTS (" + slots.size() + ") ==========");
+        for (AppointmentService.AvailableSlot slot : slots) {
+            System.out.println(slot);
+        }
+    }
+
+    private void rescheduleDoctorAppointments() throws AuthorizationService.UnauthorizedException {
+        System.out.println("\n--- Reschedule Doctor's Appointments ---");
+
+        String doctorId = getStringInput("Doctor ID: ");
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        LocalDateTime from = LocalDateTime.parse(getStringInput("Unavailable from (yyyy-MM-dd HH:mm): "), format);
+        LocalDateTime to = LocalDateTime.parse(getStringInput("Unavailable until (yyyy-MM-dd HH:mm): "), format);
+
+        AppointmentService.RescheduleReport report =
+                appointmentService.rescheduleDoctorAppointments(currentStaff(), doctorId, from, to);
+        System.out.println(report);
+    }
+
+    private void scheduleSeries() throws AuthorizationService.UnauthorizedException {
+        System.out.println("\n--- Schedule Recurring Series ---");
+
+        String patientId = getStringInput("Patient ID: ");
+        String doctorId = getStringInput("Doctor ID: ");
+        LocalDateTime firstStart = LocalDateTime.parse(getStringInput("First visit (yyyy-MM-dd HH:mm): "),
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        System.out.print("Duration (minutes): ");
+        int duration = getIntInput();
+        System.out.print("Every how many weeks: ");
+        int intervalWeeks = getIntInput();
+        System.out.print("Number of visits: ");
+        int occurrences = getIntInput();
+
+        AppointmentSeries series = appointmentService.scheduleSeries(currentStaff(), patientId, doctorId,
+                firstStart, duration, intervalWeeks, occurrences);
+        System.out.println("✅ Series scheduled!");
+        System.out.println(series);
+    }
+
+    private void cancelSeries() throws AuthorizationService.UnauthorizedException {
+        String id = getStringInput("\nSeries ID (or visit ID like SR6001#3): ");
+
+        appointmentService.cancelSeries(currentStaff(), id);
+        System.out.println("✅ Cancelled!");
+    }
+
+    private void viewCensusReport() {
+        String input = getStringInput("\nMonth (yyyy-MM, blank for this month): ");
+        try {
+            YearMonth month = input.isEmpty() ? YearMonth.now() : YearMonth.parse(input);
+            System.out.println(censusReportEngine.generate(month));
+        } catch (DateTimeParseException e) {
+            System.out.println("❌ Invalid month. Use yyyy-MM.");
+        }
+    }
+
+    private void viewUniquePatients() {
+        String fromInput = getStringInput("\nFrom month (yyyy-MM, blank for this month): ");
+        String toInput = getStringInput("To month (yyyy-MM, blank for the same month): ");
+        try {
+            YearMonth from = fromInput.isEmpty() ? YearMonth.now() : YearMonth.parse(fromInput);
+            YearMonth to = toInput.isEmpty() ? from : YearMonth.parse(toInput);
+            System.out.println(uniquePatientTracker.getReport(from, to));
+        } catch (DateTimeParseException e) {
+            System.out.println("❌ Invalid month. Use yyyy-MM.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ ERROR: " + e.getMessage());
+        }
+    }
+
     // PRESCRIPTION MANAGEMENT (WITH EXCEPTION HANDLING)
 
     private void prescriptionManagementMenu() {
@@ -494,6 +794,8 @@ public class HospitalApplication {
         System.out.println("1. View All Prescriptions");
         System.out.println("2. Create New Prescription");
         System.out.println("3. View Patient Prescriptions");
+        System.out.println("4. View Most Prescribed Drugs");
+        System.out.println("5. Find Patients On A Drug");
         System.out.println("0. Back");
         System.out.print("Choose option: ");
 
@@ -504,11 +806,15 @@ public class HospitalApplication {
                 case 1: viewAllPrescriptions(); break;
                 case 2: createPrescription(); break;
                 case 3: viewPatientPrescriptions(); break;
+                case 4: viewTopDrugs(); break;
+                case 5: findPatientsOnDrug(); break;
                 case 0: return;
                 default: System.out.println("❌ Invalid option!");
             }
         } catch (AuthorizationService.UnauthorizedException e) {
             System.out.println("❌ UNAUTHORIZED: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            System.out.println("❌ INVALID DATE FORMAT: Use yyyy-MM-dd (e.g., 2024-12-25)");
         } catch (IllegalArgumentException e) {
             System.out.println("❌ ERROR: " + e.getMessage());
         } catch (IllegalStateException e) {
@@ -519,7 +825,7 @@ public class HospitalApplication {
     }
 
     private void viewAllPrescriptions() throws AuthorizationService.UnauthorizedException {
-        List<Prescription> prescriptions = prescriptionService.getAllPrescriptions(currentStaff);
+        List<Prescription> prescriptions = prescriptionService.getAllPrescriptions(currentStaff());
         System.out.println("\n========== ALL PRESCRIPTIONS (" + prescriptions.size() + ") ==========");
         for (Prescription rx : prescriptions) {
             System.out.println(rx);
@@ -536,8 +842,22 @@ public class HospitalApplication {
         System.out.print("Duration (days): ");
         int duration = getIntInput();
 
-        Prescription rx = prescriptionService.createPrescription(
-                currentStaff, patientId, drugName, dosage, duration);
+        Prescription rx;
+        try {
+            rx = prescriptionService.createPrescription(
+                    currentStaff(), patientId, drugName, dosage, duration);
+        } catch (MedicationSafetyException e) {
+            System.out.println("\n⚠️  Safety warnings for " + e.getDrugName() + ":");
+            for (String warning : e.getWarnings()) {
+                System.out.println("  - " + warning);
+            }
+            if (!getStringInput("Prescribe anyway? (y/n): ").equalsIgnoreCase("y")) {
+                System.out.println("Prescription not created.");
+                return;
+            }
+            rx = prescriptionService.createPrescription(
+                    currentStaff(), patientId, drugName, dosage, duration, true);
+        }
         System.out.println("✅ Prescription created!");
         System.out.println(rx);
     }
@@ -546,7 +866,7 @@ public class HospitalApplication {
         String patientId = getStringInput("\nPatient ID: ");
 
         List<Prescription> prescriptions = prescriptionService.getPatientPrescriptions(
-                currentStaff, patientId);
+                currentStaff(), patientId);
         System.out.println("\n========== PRESCRIPTIONS (" + prescriptions.size() + ") ==========");
         for (Prescription rx : prescriptions) {
             System.out.println(rx);
@@ -554,6 +874,47 @@ public class HospitalApplication {
         }
     }
 
+    private void findPatientsOnDrug() throws AuthorizationService.UnauthorizedException {
+        String drugName = getStringInput("\nDrug Name: ");
+        LocalDate from = LocalDate.parse(getStringInput("From date (yyyy-MM-dd): "));
+        String toInput = getStringInput("To date (yyyy-MM-dd, blank for the same day): ");
+        LocalDate to = toInput.isEmpty() ? from : LocalDate.parse(toInput);
+
+        List<Prescription> courses = prescriptionService.findCoursesOnDrug(currentStaff(), drugName, from, to);
+        String range = from.equals(to) ? "on " + from : "between " + from + " and " + to;
+        System.out.println("\n========== ON " + drugName.toUpperCase() + " " + range.toUpperCase()
+                + " (" + courses.size() + " courses) ==========");
+        String lastPatient = null;
+        for (Prescription rx : courses) {
+            if (!rx.getPatientId().equals(lastPatient)) {
+                lastPatient = rx.getPatientId();
+                System.out.println("\nPatient " + lastPatient + ":");
+            }
+            System.out.println("  " + rx.getPrescriptionId() + " " + rx.getDosage() + " from "
+                    + rx.getPrescribedDate() + " for " + rx.getDurationDays() + " days");
+        }
+    }
+
+    private void viewTopDrugs() {
+        System.out.print("\nWindow (1) last hour, (2) last day, (3) last month: ");
+        int choice = getIntInput();
+        DrugUtilizationTracker.Window window = choice == 1 ? DrugUtilizationTracker.Window.LAST_HOUR
+                : choice == 3 ? DrugUtilizationTracker.Window.LAST_MONTH
+                : DrugUtilizationTracker.Window.LAST_DAY;
+        System.out.print("How many drugs: ");
+        int k = getIntInput();
+
+        List<SlidingWindowHeavyHitters.HeavyHitter> top = drugUtilizationTracker.getTopDrugs(window, k);
+        System.out.println("\n--- Most Prescribed Drugs (" + window + ") ---");
+        if (top.isEmpty()) {
+            System.out.println("No prescriptions in this window.");
+            return;
+        }
+        for (int i = 0; i < top.size(); i++) {
+            System.out.println((i + 1) + ". " + top.get(i));
+        }
+    }
+
     //  TREATMENT MANAGEMENT (WITH EXCEPTION HANDLING)
 
     private void treatmentManagementMenu() {
@@ -561,6 +922,8 @@ public class HospitalApplication {
         System.out.println("1. View All Treatments");
         System.out.println("2. Record New Treatment");
         System.out.println("3. View Patient Treatments");
+        System.out.println("4. View Diagnosis Trends and Spike Alerts");
+        System.out.println("5. Search Treatment Notes and Medical History");
         System.out.println("0. Back");
         System.out.print("Choose option: ");
 
@@ -571,6 +934,8 @@ public class HospitalApplication {
                 case 1: viewAllTreatments(); break;
                 case 2: recordTreatment(); break;
                 case 3: viewPatientTreatments(); break;
+                case 4: viewDiagnosisTrends(); break;
+                case 5: searchClinicalNotes(); break;
                 case 0: return;
                 default: System.out.println("❌ Invalid option!");
             }
@@ -586,7 +951,7 @@ public class HospitalApplication {
     }
 
     private void viewAllTreatments() throws AuthorizationService.UnauthorizedException {
-        List<TreatmentRecord> treatments = treatmentService.getAllTreatments(currentStaff);
+        List<TreatmentRecord> treatments = treatmentService.getAllTreatments(currentStaff());
         System.out.println("\n========== ALL TREATMENTS (" + treatments.size() + ") ==========");
         for (TreatmentRecord treatment : treatments) {
             System.out.println(treatment);
@@ -602,7 +967,7 @@ public class HospitalApplication {
         String notes = getStringInput("Treatment Notes: ");
 
         TreatmentRecord treatment = treatmentService.recordTreatment(
-                currentStaff, patientId, diagnosis, notes);
+                currentStaff(), patientId, diagnosis, notes);
         System.out.println("✅ Treatment recorded!");
         System.out.println(treatment);
     }
@@ -611,7 +976,7 @@ public class HospitalApplication {
         String patientId = getStringInput("\nPatient ID: ");
 
         List<TreatmentRecord> treatments = treatmentService.getPatientTreatments(
-                currentStaff, patientId);
+                currentStaff(), patientId);
         System.out.println("\n========== TREATMENTS (" + treatments.size() + ") ==========");
         for (TreatmentRecord treatment : treatments) {
             System.out.println(treatment);
@@ -619,6 +984,43 @@ public class HospitalApplication {
         }
     }
 
+    private void searchClinicalNotes() throws AuthorizationService.UnauthorizedException {
+        String query = getStringInput("\nSearch terms: ");
+        List<ClinicalSearchService.SearchResult> results =
+                clinicalSearchService.search(currentStaff(), query, 20);
+        System.out.println("\n========== SEARCH RESULTS (" + results.size() + ") ==========");
+        if (results.isEmpty()) {
+            System.out.println("No matching treatments or history entries.");
+        }
+        for (ClinicalSearchService.SearchResult result : results) {
+            System.out.println(result);
+        }
+    }
+
+    private void viewDiagnosisTrends() {
+        LocalDate today = LocalDate.now();
+        System.out.println("\n--- Diagnoses Today (" + today + ") ---");
+        printDiagnosisCounts(diagnosisRollup.getDailyCounts(today));
+        System.out.println("\n--- Diagnoses This Week ---");
+        printDiagnosisCounts(diagnosisRollup.getWeeklyCounts(today));
+
+        List<DiagnosisRollup.SpikeAlert> alerts = diagnosisRollup.getRecentAlerts();
+        System.out.println("\n--- Spike Alerts (" + alerts.size() + ") ---");
+        for (DiagnosisRollup.SpikeAlert alert : alerts) {
+            System.out.println("⚠️ " + alert);
+        }
+    }
+
+    private void printDiagnosisCounts(List<DiagnosisRollup.DiagnosisCount> counts) {
+        if (counts.isEmpty()) {
+            System.out.println("No treatments recorded.");
+            return;
+        }
+        for (int i = 0; i < Math.min(counts.size(), 10); i++) {
+            System.out.println((i + 1) + ". " + counts.get(i));
+        }
+    }
+
     //  VIEW PATIENT HISTORY (WITH EXCEPTION HANDLING)
 
     private void viewPatientHistory() {
@@ -626,7 +1028,7 @@ public class HospitalApplication {
             String patientId = getStringInput("\nPatient ID: ");
 
             PatientService.PatientHistoryReport report =
-                    patientService.getPatientHistory(currentStaff, patientId);
+                    patientService.getPatientHistory(currentStaff(), patientId);
 
             System.out.println(report);
 
@@ -641,9 +1043,18 @@ public class HospitalApplication {
 
     // UTILITY METHODS
 
+    // Staff member behind the current session, or null once it has been logged out or expired
+    private Staff currentStaff() {
+        return sessionService.resolve(sessionToken);
+    }
+
     private void logout() {
-        System.out.println("\n👋 Goodbye, " + currentStaff.getName() + "!");
-        currentStaff = null;
+        Staff currentStaff = currentStaff();
+        if (currentStaff != null) {
+            System.out.println("\n👋 Goodbye, " + currentStaff.getName() + "!");
+        }
+        sessionService.logout(sessionToken);
+        sessionToken = null;
     }
 
     private int getIntInput() {
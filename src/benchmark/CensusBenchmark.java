@@ -0,0 +1,96 @@
+package benchmark;
+
+import model.Appointment;
+import model.Doctor;
+import model.Gender;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+import report.CensusReport;
+import report.CensusReportEngine;
+import repository.AppointmentRespository;
+import repository.PatientRepository;
+import repository.PrescriptionRepository;
+import repository.StaffRepository;
+import repository.TreatmentRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Random;
+
+// Loads a synthetic hospital and times the census fork/join phase at every thread count from 1 to N.
+// N defaults to the number of cores; counts above that are run but flagged, as they can't scale.
+// Usage: java benchmark.CensusBenchmark [recordsPerType] [doctors] [maxThreads]
+public class CensusBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int doctorCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : cores;
+        YearMonth month = YearMonth.now();
+        Random random = new Random(42);
+
+        StaffRepository staffRepository = new StaffRepository();
+        PatientRepository patientRepository = new PatientRepository();
+        AppointmentRespository appointmentRepository = new AppointmentRespository();
+        PrescriptionRepository prescriptionRepository = new PrescriptionRepository();
+        TreatmentRepository treatmentRepository = new TreatmentRepository();
+
+        System.out.println("Loading " + records + " patients, appointments, prescriptions and treatments...");
+        String[] doctorIds = new String[doctorCount];
+        for (int i = 0; i < doctorCount; i++) {
+            doctorIds[i] = "S" + i;
+            staffRepository.addStaff(new Doctor("PER-S" + i, "Doctor " + i, 45, Gender.FEMALE, doctorIds[i],
+                    "Department " + (i % 12), "Specialization " + (i % 30)));
+        }
+        LocalDate firstDay = month.atDay(1);
+        LocalDateTime firstSlot = firstDay.minusDays(15).atTime(8, 0);
+        Appointment.AppointmentStatus[] statuses = Appointment.AppointmentStatus.values();
+        for (int i = 0; i < records; i++) {
+            String doctorId = doctorIds[i % doctorCount];
+            Patient patient = new Patient("PER-P" + i, "Patient " + i, random.nextInt(95),
+                    random.nextBoolean() ? Gender.MALE : Gender.FEMALE, "P" + i);
+            patient.assignDoctor(doctorId);
+            patientRepository.addPatient(patient);
+
+            // Consecutive 30 minute slots per doctor, so nothing overlaps
+            Appointment appointment = new Appointment("A" + i, "P" + i, doctorId,
+                    firstSlot.plusMinutes(30L * (i / doctorCount)));
+            appointment.setStatus(statuses[random.nextInt(statuses.length)]);
+            appointmentRepository.addAppointment(appointment);
+
+            LocalDate day = firstDay.plusDays(random.nextInt(60) - 15);
+            prescriptionRepository.addPrescription(new Prescription("Rx" + i, "P" + i,
+                    "Drug " + random.nextInt(500), "1 tablet", 7, doctorId));
+            treatmentRepository.addTreatment(new TreatmentRecord("T" + i, "P" + i, "Diagnosis " + random.nextInt(300),
+                    "", day, doctorId));
+        }
+
+        CensusReportEngine engine = new CensusReportEngine(patientRepository, staffRepository,
+                appointmentRepository, prescriptionRepository, treatmentRepository);
+        System.out.println("Cores available: " + cores);
+        System.out.println(String.format("%-8s %10s %10s %12s", "Threads", "Best ms", "Speed-up", "Snapshot ms"));
+
+        long baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long best = Long.MAX_VALUE;
+            long snapshot = Long.MAX_VALUE;
+            for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                CensusReport report = engine.generate(month, threads);
+                if (run >= WARMUP_RUNS) {
+                    best = Math.min(best, report.getElapsedMillis());
+                    snapshot = Math.min(snapshot, report.getSnapshotMillis());
+                }
+            }
+            if (threads == 1) {
+                baseline = best;
+            }
+            System.out.println(String.format("%-8d %10d %9.2fx %12d%s", threads, best,
+                    (double) baseline / Math.max(best, 1), snapshot, threads > cores ? "  (more threads than cores)" : ""));
+        }
+    }
+}
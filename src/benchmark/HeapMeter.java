@@ -0,0 +1,25 @@
+package benchmark;
+
+// Heap measurement shared by the heap benchmarks
+final class HeapMeter {
+    private HeapMeter() {
+    }
+
+    // Used heap after a forced collection, the lowest of five readings so garbage one collection missed
+    // doesn't count
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
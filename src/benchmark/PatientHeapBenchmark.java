@@ -0,0 +1,46 @@
+package benchmark;
+
+import model.Gender;
+import model.Patient;
+
+import java.util.Random;
+
+// Measures the retained heap of N patients shaped like a newly registered population: most have no
+// history yet, some have an appointment, a few have history in every list.
+// Usage: java -Xmx4g benchmark.PatientHeapBenchmark [patients]
+public class PatientHeapBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+
+        long baseline = HeapMeter.usedHeap();
+        Patient[] patients = new Patient[count];
+        long entries = 0;
+        for (int i = 0; i < count; i++) {
+            Patient patient = new Patient("PER-P" + i, "Patient " + i, random.nextInt(95),
+                    random.nextBoolean() ? Gender.MALE : Gender.FEMALE, "P" + i);
+            int shape = random.nextInt(100);
+            if (shape >= 80) {
+                // One booked appointment
+                patient.addAppointment("A" + i);
+                entries++;
+            }
+            if (shape >= 95) {
+                // A returning patient with a little of everything
+                patient.addMedicalHistory("History note " + i);
+                patient.addTreatment("T" + i);
+                patient.addPrescription("Rx" + i);
+                patient.addPrescription("Rx" + i + "b");
+                entries += 4;
+            }
+            patients[i] = patient;
+        }
+        long retained = HeapMeter.usedHeap() - baseline;
+
+        System.out.println("Patients:        " + count + " (" + entries + " history entries)");
+        System.out.println(String.format("Retained heap:   %,d bytes (%.1f per patient)",
+                retained, (double) retained / count));
+        // Keep everything reachable until after the measurement
+        System.out.println("Check: " + patients[count - 1].getAppointmentHistory().size());
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import model.Prescription;
+import repository.PrescriptionRepository;
+
+import java.util.Random;
+
+// Measures the retained heap of N prescriptions, first as bare objects and then loaded into the repository.
+// Drug names and dosages are built fresh for every prescription, the way they arrive from user input.
+// Usage: java -Xmx4g benchmark.PrescriptionHeapBenchmark [prescriptions]
+public class PrescriptionHeapBenchmark {
+    private static final int DRUGS = 500;
+    private static final String[] DOSAGE_FORMS = {"tablet", "capsule", "ml", "mg", "puff"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+
+        long baseline = HeapMeter.usedHeap();
+        Prescription[] prescriptions = new Prescription[count];
+        for (int i = 0; i < count; i++) {
+            String drugName = "Drug " + random.nextInt(DRUGS);
+            String dosage = (1 + random.nextInt(4)) + " " + DOSAGE_FORMS[random.nextInt(DOSAGE_FORMS.length)];
+            prescriptions[i] = new Prescription("Rx" + i, "P" + random.nextInt(count), drugName, dosage,
+                    1 + random.nextInt(30), "S" + random.nextInt(200));
+        }
+        long objects = HeapMeter.usedHeap() - baseline;
+
+        PrescriptionRepository repository = new PrescriptionRepository();
+        for (Prescription prescription : prescriptions) {
+            repository.addPrescription(prescription);
+        }
+        long withRepository = HeapMeter.usedHeap() - baseline;
+
+        System.out.println("Prescriptions:             " + count);
+        System.out.println(String.format("Objects only:              %,d bytes (%.1f per prescription)",
+                objects, (double) objects / count));
+        System.out.println(String.format("Objects plus repository:   %,d bytes (%.1f per prescription)",
+                withRepository, (double) withRepository / count));
+        // Keep everything reachable until after the last measurement
+        System.out.println("Check: " + repository.count() + " " + prescriptions[count - 1].getDrugName());
+    }
+}
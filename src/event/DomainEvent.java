@@ -0,0 +1,115 @@
+package event;
+
+import model.Appointment;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+
+//A slot in the EventBus ring. Slots are preallocated and reused, so a listener must copy out whatever
+//it needs during onEvent and never keep a reference to the event itself.
+public class DomainEvent {
+    public enum Type {
+        APPOINTMENT_SCHEDULED,
+        APPOINTMENT_STATUS_CHANGED,
+        PRESCRIPTION_CREATED,
+        TREATMENT_RECORDED,
+        PATIENT_ASSIGNED,
+        MEDICAL_HISTORY_ADDED
+    }
+
+    private long sequence;
+    private Type type;
+    private long timestampMillis;
+    private Object payload;
+    private Appointment.AppointmentStatus previousStatus;
+    private Appointment.AppointmentStatus status;
+    private String doctorId;
+    private String previousDoctorId;
+    private String detail;
+    private int entryIndex;
+
+    DomainEvent() {
+    }
+
+    void set(long sequence, Type type, Object payload,
+             Appointment.AppointmentStatus previousStatus, Appointment.AppointmentStatus status,
+             String doctorId, String previousDoctorId, String detail, int entryIndex) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestampMillis = System.currentTimeMillis();
+        this.payload = payload;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.doctorId = doctorId;
+        this.previousDoctorId = previousDoctorId;
+        this.detail = detail;
+        this.entryIndex = entryIndex;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    //Set for APPOINTMENT_SCHEDULED and APPOINTMENT_STATUS_CHANGED
+    public Appointment getAppointment() {
+        return payload instanceof Appointment ? (Appointment) payload : null;
+    }
+
+    //Set for PRESCRIPTION_CREATED
+    public Prescription getPrescription() {
+        return payload instanceof Prescription ? (Prescription) payload : null;
+    }
+
+    //Set for TREATMENT_RECORDED
+    public TreatmentRecord getTreatment() {
+        return payload instanceof TreatmentRecord ? (TreatmentRecord) payload : null;
+    }
+
+    //Set for PATIENT_ASSIGNED and MEDICAL_HISTORY_ADDED
+    public Patient getPatient() {
+        return payload instanceof Patient ? (Patient) payload : null;
+    }
+
+    //Doctor a PATIENT_ASSIGNED moved the patient to
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    //Doctor a PATIENT_ASSIGNED moved the patient away from, null if the patient had none
+    public String getPreviousDoctorId() {
+        return previousDoctorId;
+    }
+
+    //The entry a MEDICAL_HISTORY_ADDED appended to the patient's history
+    public String getDetail() {
+        return detail;
+    }
+
+    //Position of that entry in the patient's medical history, -1 for other events
+    public int getEntryIndex() {
+        return entryIndex;
+    }
+
+    //Status before an APPOINTMENT_STATUS_CHANGED
+    public Appointment.AppointmentStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    //Appointment status as of publishing. The appointment itself may have moved on by the time a listener runs.
+    public Appointment.AppointmentStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Event #%d %s %s", sequence, type, payload);
+    }
+}
@@ -0,0 +1,6 @@
+package event;
+
+//Receives events on the subscriber's own thread, in publish order
+public interface DomainEventListener {
+    void onEvent(DomainEvent event);
+}
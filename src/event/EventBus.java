@@ -0,0 +1,185 @@
+package event;
+
+import model.Appointment;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+//Publishes domain events through a preallocated ring buffer. Publishers claim a sequence, fill the slot in
+//place and mark it published, so the write path neither allocates nor takes a lock. Each subscriber runs on
+//its own daemon thread and follows the ring at its own pace.
+//Publishers only wait if the slowest subscriber is a whole ring behind. An idle subscriber yields for a short
+//while, then parks until a publisher wakes it, so a quiet bus costs no CPU.
+public class EventBus {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int IDLE_SPINS = 100; //yields before an idle subscriber parks
+
+    private final DomainEvent[] ring;
+    private final int mask;
+    private final AtomicLongArray published; //sequence last published into each slot
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile Subscriber[] wakeList = new Subscriber[0]; //the subscribers as an array, so waking allocates nothing
+    private volatile long gatingSequence = -1; //cached minimum of the subscriber sequences
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new DomainEvent[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new DomainEvent();
+            published.set(i, -1);
+        }
+    }
+
+    //Register a listener. It sees every event published after this call.
+    public synchronized void subscribe(String name, DomainEventListener listener) {
+        Subscriber subscriber = new Subscriber(name, listener, claimed.get());
+        subscribers.add(subscriber);
+        wakeList = subscribers.toArray(new Subscriber[0]);
+        subscriber.thread.start();
+    }
+
+    public void publishAppointmentScheduled(Appointment appointment) {
+        publish(DomainEvent.Type.APPOINTMENT_SCHEDULED, appointment, null, appointment.getStatus(), null, null, null, -1);
+    }
+
+    public void publishAppointmentStatusChanged(Appointment appointment,
+                                                Appointment.AppointmentStatus previousStatus,
+                                                Appointment.AppointmentStatus newStatus) {
+        publish(DomainEvent.Type.APPOINTMENT_STATUS_CHANGED, appointment, previousStatus, newStatus, null, null, null, -1);
+    }
+
+    public void publishPrescriptionCreated(Prescription prescription) {
+        publish(DomainEvent.Type.PRESCRIPTION_CREATED, prescription, null, null, null, null, null, -1);
+    }
+
+    public void publishTreatmentRecorded(TreatmentRecord treatment) {
+        publish(DomainEvent.Type.TREATMENT_RECORDED, treatment, null, null, null, null, null, -1);
+    }
+
+    public void publishPatientAssigned(Patient patient, String previousDoctorId, String doctorId) {
+        publish(DomainEvent.Type.PATIENT_ASSIGNED, patient, null, null, doctorId, previousDoctorId, null, -1);
+    }
+
+    //entryIndex is the entry's position in the patient's history, read when it was appended
+    public void publishMedicalHistoryAdded(Patient patient, String entry, int entryIndex) {
+        publish(DomainEvent.Type.MEDICAL_HISTORY_ADDED, patient, null, null, null, null, entry, entryIndex);
+    }
+
+    public synchronized void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.running = false;
+            LockSupport.unpark(subscriber.thread);
+        }
+        subscribers.clear();
+        wakeList = new Subscriber[0];
+    }
+
+    private void publish(DomainEvent.Type type, Object payload,
+                         Appointment.AppointmentStatus previousStatus,
+                         Appointment.AppointmentStatus status,
+                         String doctorId, String previousDoctorId, String detail, int entryIndex) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        awaitCapacity(sequence);
+
+        int index = (int) sequence & mask;
+        ring[index].set(sequence, type, payload, previousStatus, status, doctorId, previousDoctorId, detail, entryIndex);
+        //A full volatile store, not lazySet: a subscriber sets 'waiting' and then re-checks the slot, and the
+        //publisher stores the slot and then reads 'waiting', so one of them always sees the other
+        published.set(index, sequence);
+        for (Subscriber subscriber : wakeList) {
+            if (subscriber.waiting) {
+                LockSupport.unpark(subscriber.thread);
+            }
+        }
+    }
+
+    //The slot for sequence is free once every subscriber has consumed the event a full ring earlier
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint <= gatingSequence) {
+            return;
+        }
+        while (true) {
+            long minimum = minimumSubscriberSequence(sequence - 1);
+            gatingSequence = minimum;
+            if (wrapPoint <= minimum) {
+                return;
+            }
+            LockSupport.parkNanos(1_000L);
+        }
+    }
+
+    private long minimumSubscriberSequence(long upperBound) {
+        long minimum = upperBound;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.running) {
+                minimum = Math.min(minimum, subscriber.sequence.get());
+            }
+        }
+        return minimum;
+    }
+
+    private class Subscriber implements Runnable {
+        private final String name;
+        private final DomainEventListener listener;
+        private final AtomicLong sequence; //last event fully handled
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean waiting; //parked, or about to park, until a publisher unparks it
+
+        Subscriber(String name, DomainEventListener listener, long startAfter) {
+            this.name = name;
+            this.listener = listener;
+            this.sequence = new AtomicLong(startAfter);
+            this.thread = new Thread(this, "event-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                int index = (int) next & mask;
+                if (published.get(index) != next) {
+                    if (++idleSpins < IDLE_SPINS) {
+                        Thread.yield();
+                        continue;
+                    }
+                    waiting = true;
+                    if (published.get(index) != next && running) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    idleSpins = 0;
+                    continue;
+                }
+                idleSpins = 0;
+                try {
+                    listener.onEvent(ring[index]);
+                } catch (RuntimeException e) {
+                    System.err.println("Event subscriber " + name + " failed on " + ring[index] + ": " + e.getMessage());
+                }
+                sequence.lazySet(next);
+            }
+        }
+    }
+}
@@ -3,11 +3,16 @@ package model;
 import java.time.LocalDateTime;
 
 public class Appointment {
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+    public static final int MAX_DURATION_MINUTES = 8 * 60;
+
     private String appointmentId;
     private String patientId;
     private String doctorId;
     private LocalDateTime dateTime;
+    private int durationMinutes;
     private AppointmentStatus status;
+    private volatile long version; //bumped by the repository on every update, used for optimistic locking
 
     public enum AppointmentStatus{
         SCHEDULED,
@@ -17,10 +22,16 @@ public class Appointment {
     }
 
     public Appointment(String appointmentId, String patientId, String doctorId, LocalDateTime dateTime) {
+        this(appointmentId, patientId, doctorId, dateTime, DEFAULT_DURATION_MINUTES);
+    }
+
+    public Appointment(String appointmentId, String patientId, String doctorId, LocalDateTime dateTime,
+                       int durationMinutes) {
         this.appointmentId = appointmentId;
         this.patientId = patientId;
         this.doctorId = doctorId;
         this.dateTime = dateTime;
+        this.durationMinutes = durationMinutes;
         this.status = AppointmentStatus.SCHEDULED;
     }
 
@@ -40,6 +51,14 @@ public class Appointment {
         return dateTime;
     }
 
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public LocalDateTime getEndDateTime() {
+        return dateTime.plusMinutes(durationMinutes);
+    }
+
     public AppointmentStatus getStatus() {
         return status;
     }
@@ -48,9 +67,17 @@ public class Appointment {
         this.status = status;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
-        return String.format("Appointment %s: Patient %s with Doctor %s on %s [%s]",
-                appointmentId, patientId, doctorId, dateTime, status);
+        return String.format("Appointment %s: Patient %s with Doctor %s on %s (%d min) [%s]",
+                appointmentId, patientId, doctorId, dateTime, durationMinutes, status);
     }
 }
@@ -0,0 +1,152 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//A standing appointment (dialysis, physiotherapy...) stored as a rule instead of one row per visit.
+//Occurrences are computed on demand, so storage is O(series) however far ahead the series runs. Visits
+//coming up soon are materialized as ordinary appointments; the rule only stands for the ones after those.
+public class AppointmentSeries {
+    private final String seriesId;
+    private final String patientId;
+    private final String doctorId;
+    private final LocalDateTime firstStart;
+    private final int durationMinutes;
+    private final int intervalWeeks;
+    private final int occurrenceCount;
+    private final Set<Integer> skippedOccurrences; //occurrence indexes cancelled one by one
+    private volatile boolean active;
+    private volatile int materializedCount; //occurrences before this index have been handed to the appointments
+
+    public AppointmentSeries(String seriesId, String patientId, String doctorId, LocalDateTime firstStart,
+                             int durationMinutes, int intervalWeeks, int occurrenceCount) {
+        this.seriesId = seriesId;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.firstStart = firstStart;
+        this.durationMinutes = durationMinutes;
+        this.intervalWeeks = intervalWeeks;
+        this.occurrenceCount = occurrenceCount;
+        this.skippedOccurrences = ConcurrentHashMap.newKeySet();
+        this.active = true;
+    }
+
+    public String getSeriesId() {
+        return seriesId;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getFirstStart() {
+        return firstStart;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public int getIntervalWeeks() {
+        return intervalWeeks;
+    }
+
+    public int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void cancel() {
+        this.active = false;
+    }
+
+    public void skipOccurrence(int index) {
+        skippedOccurrences.add(index);
+    }
+
+    public LocalDateTime getOccurrenceStart(int index) {
+        return firstStart.plusWeeks((long) index * intervalWeeks);
+    }
+
+    public LocalDateTime getLastStart() {
+        return getOccurrenceStart(occurrenceCount - 1);
+    }
+
+    //True if the occurrence exists and hasn't been cancelled
+    public boolean isOccurring(long index) {
+        return active && index >= 0 && index < occurrenceCount && !skippedOccurrences.contains((int) index);
+    }
+
+    //True if the occurrence is still only part of the rule, not yet an appointment of its own
+    public boolean isPending(long index) {
+        return index >= materializedCount && isOccurring(index);
+    }
+
+    public int getMaterializedCount() {
+        return materializedCount;
+    }
+
+    public void setMaterializedCount(int materializedCount) {
+        this.materializedCount = materializedCount;
+    }
+
+    //Index of the pending occurrence overlapping [start, start + minutes), or -1. Constant time: with a period of at
+    //least a week and visits shorter than that, only the occurrences either side of 'start' can overlap.
+    public int findOverlapping(LocalDateTime start, int minutes) {
+        long periodMinutes = intervalWeeks * 7L * 24 * 60;
+        long nearest = Math.floorDiv(Duration.between(firstStart, start).toMinutes(), periodMinutes);
+        LocalDateTime end = start.plusMinutes(minutes);
+        for (long index = nearest; index <= nearest + 1; index++) {
+            if (!isPending(index)) {
+                continue;
+            }
+            LocalDateTime occurrenceStart = getOccurrenceStart((int) index);
+            if (occurrenceStart.isBefore(end) && occurrenceStart.plusMinutes(durationMinutes).isAfter(start)) {
+                return (int) index;
+            }
+        }
+        return -1;
+    }
+
+    //Pending occurrences overlapping [from, to), in time order. Materialized ones are in the appointments.
+    public List<Appointment> expand(LocalDateTime from, LocalDateTime to) {
+        List<Appointment> occurrences = new ArrayList<>();
+        long periodMinutes = intervalWeeks * 7L * 24 * 60;
+        long first = Math.max(0, Math.floorDiv(
+                Duration.between(firstStart, from.minusMinutes(durationMinutes)).toMinutes(), periodMinutes));
+        for (long index = first; index < occurrenceCount; index++) {
+            LocalDateTime start = getOccurrenceStart((int) index);
+            if (!start.isBefore(to)) {
+                break;
+            }
+            if (isPending(index) && start.plusMinutes(durationMinutes).isAfter(from)) {
+                occurrences.add(toAppointment((int) index));
+            }
+        }
+        return occurrences;
+    }
+
+    //The occurrence as an appointment. Its ID is the series ID plus the 1-based occurrence number.
+    public Appointment toAppointment(int index) {
+        return new Appointment(seriesId + "#" + (index + 1), patientId, doctorId,
+                getOccurrenceStart(index), durationMinutes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Series %s: Patient %s with Doctor %s every %d week(s) from %s, %d visits of %d min%s",
+                seriesId, patientId, doctorId, intervalWeeks, firstStart, occurrenceCount, durationMinutes,
+                active ? "" : " [CANCELLED]");
+    }
+}
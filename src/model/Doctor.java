@@ -4,23 +4,31 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Doctor extends Staff {
-    private String specialization;
+    private int specializationCode; //Vocabulary.SPECIALIZATION
     private List<String> assignedPatientsIds;
 
     public Doctor(String id, String name, int age, Gender gender, String staffId, String department, String specialization) {
         super(id, name, age, gender, staffId, "Doctor", department);
-        this.specialization = specialization;
+        this.specializationCode = Vocabulary.SPECIALIZATION.encode(specialization);
         this.assignedPatientsIds = new ArrayList<>();
     }
 
     public String getSpecialization() {
-        return specialization;
+        return Vocabulary.SPECIALIZATION.decode(specializationCode);
+    }
+
+    public int getSpecializationCode() {
+        return specializationCode;
     }
 
     public List<String> getAssignedPatientIds() {
         return new ArrayList<>(assignedPatientsIds);
     }
 
+    public int getAssignedPatientCount() {
+        return assignedPatientsIds.size();
+    }
+
     public void assignPatient(String patientId) {
         if(!assignedPatientsIds.contains(patientId)){
             assignedPatientsIds.add(patientId);
@@ -49,7 +57,7 @@ public class Doctor extends Staff {
     @Override
     public String getDisplayInfo(){
         return String.format("Dr. %s (%s) - %s | Dept: %s | Patients: %d",
-                getName(), getStaffId(), specialization, getDepartment(),
+                getName(), getStaffId(), getSpecialization(), getDepartment(),
                 assignedPatientsIds.size());
     }
 }
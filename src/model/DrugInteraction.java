@@ -0,0 +1,53 @@
+package model;
+
+public class DrugInteraction {
+    private String drugA;
+    private String drugB;
+    private Severity severity;
+    private String description;
+
+    public enum Severity {
+        MINOR,
+        MODERATE,
+        MAJOR,
+        CONTRAINDICATED;
+
+        public static Severity fromString(String value) {
+            for (Severity severity : values()) {
+                if (severity.name().equalsIgnoreCase(value.trim())) {
+                    return severity;
+                }
+            }
+            throw new IllegalArgumentException("Invalid interaction severity: " + value
+                    + ". Use Minor, Moderate, Major or Contraindicated");
+        }
+    }
+
+    public DrugInteraction(String drugA, String drugB, Severity severity, String description) {
+        this.drugA = drugA;
+        this.drugB = drugB;
+        this.severity = severity;
+        this.description = description;
+    }
+
+    public String getDrugA() {
+        return drugA;
+    }
+
+    public String getDrugB() {
+        return drugB;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s + %s [%s]: %s", drugA, drugB, severity, description);
+    }
+}
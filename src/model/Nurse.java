@@ -1,19 +1,23 @@
 package model;
 
 public class Nurse extends Staff {
-    private String ward;
+    private int wardCode; //Vocabulary.WARD
 
     public Nurse(String id, String name, int age, Gender gender, String staffId, String department, String ward) {
         super(id, name, age, gender, staffId, "Nurse", department);
-        this.ward = ward;
+        this.wardCode = Vocabulary.WARD.encode(ward);
     }
 
     public String getWard() {
-        return ward;
+        return Vocabulary.WARD.decode(wardCode);
+    }
+
+    public int getWardCode() {
+        return wardCode;
     }
 
     public void setWard(String ward) {
-        this.ward = ward;
+        this.wardCode = Vocabulary.WARD.encode(ward);
     }
 
     @Override
@@ -34,6 +38,6 @@ public class Nurse extends Staff {
     @Override
     public String getDisplayInfo(){
         return String.format("Nurse %s (%s) - Ward: %s | Dept: %s",
-                getName(), getStaffId(), ward, getDepartment());
+                getName(), getStaffId(), getWard(), getDepartment());
     }
 }
@@ -1,23 +1,28 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Patient extends Person{
+    private static final String[] EMPTY = new String[0];
+
     private final String patientId;
-    private final List<String> medicalHistory;
-    private final List<String> appointmentHistory;
-    private final List<String> treatmentHistory;
-    private final List<String> prescriptionIds;
+    //Each history is a packed array plus a count. They all start on the shared empty array, so nothing is
+    //allocated until the first entry (most patients have none in most lists), then grow by doubling from two slots.
+    private String[] medicalHistory = EMPTY;
+    private String[] appointmentHistory = EMPTY;
+    private String[] treatmentHistory = EMPTY;
+    private String[] prescriptionIds = EMPTY;
+    private int medicalHistoryCount;
+    private int appointmentCount;
+    private int treatmentCount;
+    private int prescriptionCount;
     private String assignedDoctorId;
 
     public Patient(String id, String name, int age, Gender gender, String patientId) {
         super(id, name, age, gender);
         this.patientId = patientId;
-        this.medicalHistory = new ArrayList<>();
-        this.appointmentHistory = new ArrayList<>();
-        this.treatmentHistory = new ArrayList<>();
-        this.prescriptionIds = new ArrayList<>();
     }
 
     public String getPatientId(){
@@ -33,35 +38,67 @@ public class Patient extends Person{
     }
 
     public List<String> getMedicalHistory() {
-        return new ArrayList<>(medicalHistory);
+        return copyOf(medicalHistory, medicalHistoryCount);
+    }
+
+    public int getMedicalHistoryCount() {
+        return medicalHistoryCount;
+    }
+
+    public String getMedicalHistoryEntry(int index) {
+        if (index < 0 || index >= medicalHistoryCount) {
+            throw new IndexOutOfBoundsException("No medical history entry " + index + " of " + medicalHistoryCount);
+        }
+        return medicalHistory[index];
     }
 
     public void addMedicalHistory(String record) {
-        medicalHistory.add(record);
+        medicalHistory = append(medicalHistory, medicalHistoryCount, record);
+        medicalHistoryCount++;
     }
 
     public List<String> getAppointmentHistory(){
-        return new ArrayList<>(appointmentHistory);
+        return copyOf(appointmentHistory, appointmentCount);
     }
 
     public void addAppointment(String appointmentId) {
-        appointmentHistory.add(appointmentId);
+        appointmentHistory = append(appointmentHistory, appointmentCount, appointmentId);
+        appointmentCount++;
     }
 
     public List<String> getTreatmentHistory(){
-        return new ArrayList<>(treatmentHistory);
+        return copyOf(treatmentHistory, treatmentCount);
     }
 
     public void addTreatment(String treatmentId) {
-        treatmentHistory.add(treatmentId);
+        treatmentHistory = append(treatmentHistory, treatmentCount, treatmentId);
+        treatmentCount++;
     }
 
     public List<String> getPrescriptionIds(){
-        return new ArrayList<>(prescriptionIds);
+        return copyOf(prescriptionIds, prescriptionCount);
     }
 
     public void addPrescription(String prescriptionId) {
-        prescriptionIds.add(prescriptionId);
+        prescriptionIds = append(prescriptionIds, prescriptionCount, prescriptionId);
+        prescriptionCount++;
+    }
+
+    //Returns the array to keep, a larger copy if the value didn't fit
+    private static String[] append(String[] array, int count, String value) {
+        if (count == array.length) {
+            array = Arrays.copyOf(array, Math.max(2, count * 2));
+        }
+        array[count] = value;
+        return array;
+    }
+
+    private static List<String> copyOf(String[] array, int count) {
+        List<String> copy = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            copy.add(array[i]);
+        }
+        return copy;
     }
 
     @Override
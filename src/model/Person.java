@@ -6,6 +6,7 @@ public abstract class Person {
     private String name;
     private int age;
     private Gender gender;
+    private volatile long version; //bumped by the repository on every update, used for optimistic locking
 
     public Person(String id, String name, int age, Gender gender) {
         Id = id;
@@ -46,6 +47,14 @@ public abstract class Person {
         this.gender = gender;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     //This abstract method will force the subclasses to define the method and display information.
     public abstract String getDisplayInfo();
 
@@ -5,8 +5,8 @@ import java.time.LocalDate;
 public class Prescription {
     private String prescriptionId;
     private String patientId;
-    private String drugName;
-    private String dosage;
+    private int drugCode; //Vocabulary.DRUG
+    private int dosageCode; //Vocabulary.DOSAGE
     private int durationDays;
     private String prescribingDoctorId;
     private LocalDate prescribedDate;
@@ -14,8 +14,8 @@ public class Prescription {
     public Prescription(String prescriptionId, String patientId, String drugName, String dosage, int durationDays, String prescribingDoctorId) {
         this.prescriptionId = prescriptionId;
         this.patientId = patientId;
-        this.drugName = drugName;
-        this.dosage = dosage;
+        this.drugCode = Vocabulary.DRUG.encode(drugName);
+        this.dosageCode = Vocabulary.DOSAGE.encode(dosage);
         this.durationDays = durationDays;
         this.prescribingDoctorId = prescribingDoctorId;
         this.prescribedDate = LocalDate.now();
@@ -30,11 +30,19 @@ public class Prescription {
     }
 
     public String getDrugName() {
-        return drugName;
+        return Vocabulary.DRUG.decode(drugCode);
+    }
+
+    public int getDrugCode() {
+        return drugCode;
     }
 
     public String getDosage() {
-        return dosage;
+        return Vocabulary.DOSAGE.decode(dosageCode);
+    }
+
+    public int getDosageCode() {
+        return dosageCode;
     }
 
     public int getDurationDays() {
@@ -52,7 +60,7 @@ public class Prescription {
     @Override
     public String toString() {
         return String.format("Rx %s: %s (%s) for %d days\nPrescribed by: %s on %s",
-                prescriptionId, drugName, dosage, durationDays,
+                prescriptionId, getDrugName(), getDosage(), durationDays,
                 prescribingDoctorId, prescribedDate);
     }
 }
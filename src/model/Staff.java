@@ -2,14 +2,14 @@ package model;
 
 public abstract class Staff extends Person{
     private String staffId;
-    private String role;
-    private String department;
+    private int roleCode; //Vocabulary.ROLE
+    private int departmentCode; //Vocabulary.DEPARTMENT
 
     public Staff(String id, String name, int age, Gender gender, String staffId, String role, String department) {
         super(id, name, age, gender);
         this.staffId = staffId;
-        this.role = role;
-        this.department = department;
+        this.roleCode = Vocabulary.ROLE.encode(role);
+        this.departmentCode = Vocabulary.DEPARTMENT.encode(department);
     }
 
     public String getStaffId() {
@@ -21,19 +21,27 @@ public abstract class Staff extends Person{
     }
 
     public String getRole() {
-        return role;
+        return Vocabulary.ROLE.decode(roleCode);
+    }
+
+    public int getRoleCode() {
+        return roleCode;
     }
 
     public void setRole(String role) {
-        this.role = role;
+        this.roleCode = Vocabulary.ROLE.encode(role);
     }
 
     public String getDepartment() {
-        return department;
+        return Vocabulary.DEPARTMENT.decode(departmentCode);
+    }
+
+    public int getDepartmentCode() {
+        return departmentCode;
     }
 
     public void setDepartment(String department) {
-        this.department = department;
+        this.departmentCode = Vocabulary.DEPARTMENT.encode(department);
     }
 
     //Each staff type will have to define its permissions
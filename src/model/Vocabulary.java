@@ -0,0 +1,17 @@
+package model;
+
+import util.StringDictionary;
+
+//Shared dictionaries for the low-cardinality strings on staff and prescriptions. The model objects keep
+//only the codes; getters decode on the way out, so callers still see plain strings.
+public final class Vocabulary {
+    public static final StringDictionary ROLE = new StringDictionary();
+    public static final StringDictionary DEPARTMENT = new StringDictionary();
+    public static final StringDictionary SPECIALIZATION = new StringDictionary();
+    public static final StringDictionary WARD = new StringDictionary();
+    public static final StringDictionary DRUG = new StringDictionary();
+    public static final StringDictionary DOSAGE = new StringDictionary();
+
+    private Vocabulary() {
+    }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import java.time.LocalDateTime;
+
+public class WaitlistEntry {
+    private String entryId;
+    private String patientId;
+    private String doctorId; //set when waiting for a specific doctor
+    private String department; //set when any doctor of the department will do
+    private TriagePriority priority;
+    private int durationMinutes;
+    private LocalDateTime requestedAt;
+    private long sequence; //tie-break so equal priorities are served first come, first served
+
+    public enum TriagePriority {
+        EMERGENT,
+        URGENT,
+        SEMI_URGENT,
+        ROUTINE;
+
+        public static TriagePriority fromString(String value) {
+            for (TriagePriority priority : values()) {
+                if (priority.name().equalsIgnoreCase(value.trim().replace('-', '_').replace(' ', '_'))) {
+                    return priority;
+                }
+            }
+            throw new IllegalArgumentException("Invalid triage priority: " + value
+                    + ". Use Emergent, Urgent, Semi-Urgent or Routine");
+        }
+    }
+
+    public WaitlistEntry(String entryId, String patientId, String doctorId, String department,
+                         TriagePriority priority, int durationMinutes, long sequence) {
+        this.entryId = entryId;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.department = department;
+        this.priority = priority;
+        this.durationMinutes = durationMinutes;
+        this.requestedAt = LocalDateTime.now();
+        this.sequence = sequence;
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public TriagePriority getPriority() {
+        return priority;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Waitlist %s: Patient %s for %s (%d min) [%s] since %s",
+                entryId, patientId, doctorId != null ? "Doctor " + doctorId : "Dept " + department,
+                durationMinutes, priority, requestedAt);
+    }
+}
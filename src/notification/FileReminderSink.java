@@ -0,0 +1,38 @@
+package notification;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Appends each batch to a local file, one reminder per line
+public class FileReminderSink implements ReminderSink {
+    private final Path file;
+
+    public FileReminderSink(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void deliver(List<Reminder> batch) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            String sentAt = LocalDateTime.now().toString();
+            for (Reminder reminder : batch) {
+                writer.write(sentAt + " " + reminder);
+                writer.newLine();
+            }
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,21 @@
+package notification;
+
+import java.io.PrintStream;
+import java.util.List;
+
+// Writes reminders to a stream instead of sending them. Handy for local runs.
+public class LogReminderSink implements ReminderSink {
+    private final PrintStream out;
+
+    public LogReminderSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void deliver(List<Reminder> batch) {
+        for (Reminder reminder : batch) {
+            out.println("[reminder] " + reminder);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package notification;
+
+import java.time.LocalDateTime;
+
+// One reminder due for a patient ahead of an appointment
+public class Reminder {
+    private final String appointmentId;
+    private final String patientId;
+    private final String doctorId;
+    private final LocalDateTime appointmentTime;
+    private final long leadMinutes;
+
+    public Reminder(String appointmentId, String patientId, String doctorId,
+                    LocalDateTime appointmentTime, long leadMinutes) {
+        this.appointmentId = appointmentId;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.appointmentTime = appointmentTime;
+        this.leadMinutes = leadMinutes;
+    }
+
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public long getLeadMinutes() {
+        return leadMinutes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reminder for patient %s: appointment %s with Doctor %s on %s (in %d min)",
+                patientId, appointmentId, doctorId, appointmentTime, leadMinutes);
+    }
+}
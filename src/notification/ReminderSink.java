@@ -0,0 +1,8 @@
+package notification;
+
+import java.util.List;
+
+// Where due reminders go (SMS gateway, email, a log file...). Called with one batch at a time.
+public interface ReminderSink {
+    void deliver(List<Reminder> batch) throws Exception;
+}
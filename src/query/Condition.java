@@ -0,0 +1,240 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+// A composable filter over one entity type. The planner looks inside equality and range conditions
+// on indexed fields; everything else is evaluated row by row.
+public abstract class Condition<E> {
+    public abstract boolean test(E entity);
+
+    public abstract String describe();
+
+    public Condition<E> and(Condition<E> other) {
+        return Condition.allOf(this, other);
+    }
+
+    public Condition<E> or(Condition<E> other) {
+        return Condition.anyOf(this, other);
+    }
+
+    public Condition<E> negate() {
+        return new Not<>(this);
+    }
+
+    // Top-level conjuncts, so the planner can pick some for an index and keep the rest as filters
+    List<Condition<E>> conjuncts() {
+        return Collections.singletonList(this);
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    public static <E, V> Condition<E> eq(Field<E, V> field, V value) {
+        return new Eq<>(field, value);
+    }
+
+    // from inclusive, to exclusive; either bound may be null for an open end
+    public static <E, V extends Comparable<? super V>> Condition<E> between(Field<E, V> field, V from, V to) {
+        return new Range<>(field, from, to);
+    }
+
+    public static <E, V extends Comparable<? super V>> Condition<E> atLeast(Field<E, V> field, V from) {
+        return new Range<>(field, from, null);
+    }
+
+    public static <E, V extends Comparable<? super V>> Condition<E> before(Field<E, V> field, V to) {
+        return new Range<>(field, null, to);
+    }
+
+    public static <E> Condition<E> containsIgnoreCase(Field<E, String> field, String text) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        return matching(field + " contains '" + text + "'", entity -> {
+            String value = field.get(entity);
+            return value != null && value.toLowerCase(Locale.ROOT).contains(needle);
+        });
+    }
+
+    // Escape hatch for anything the DSL can't express. Never used for index selection.
+    public static <E> Condition<E> matching(String description, Predicate<E> predicate) {
+        return new Custom<>(description, predicate);
+    }
+
+    @SafeVarargs
+    public static <E> Condition<E> allOf(Condition<E>... conditions) {
+        // Copied element by element so the generic varargs array never leaves this method
+        List<Condition<E>> parts = new ArrayList<>(conditions.length);
+        for (Condition<E> condition : conditions) {
+            parts.add(condition);
+        }
+        return new And<>(parts);
+    }
+
+    @SafeVarargs
+    public static <E> Condition<E> anyOf(Condition<E>... conditions) {
+        List<Condition<E>> parts = new ArrayList<>(conditions.length);
+        for (Condition<E> condition : conditions) {
+            parts.add(condition);
+        }
+        return new Or<>(parts);
+    }
+
+    static final class Eq<E, V> extends Condition<E> {
+        final Field<E, V> field;
+        final V value;
+
+        Eq(Field<E, V> field, V value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(E entity) {
+            return Objects.equals(field.get(entity), value);
+        }
+
+        @Override
+        public String describe() {
+            return field + " = " + value;
+        }
+    }
+
+    static final class Range<E, V extends Comparable<? super V>> extends Condition<E> {
+        final Field<E, V> field;
+        final V from;
+        final V to;
+
+        Range(Field<E, V> field, V from, V to) {
+            if (from == null && to == null) {
+                throw new IllegalArgumentException("A range needs at least one bound");
+            }
+            this.field = field;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean test(E entity) {
+            V value = field.get(entity);
+            return value != null
+                    && (from == null || value.compareTo(from) >= 0)
+                    && (to == null || value.compareTo(to) < 0);
+        }
+
+        @Override
+        public String describe() {
+            return field + " in [" + (from == null ? "-inf" : from) + ", " + (to == null ? "+inf" : to) + ")";
+        }
+    }
+
+    static final class And<E> extends Condition<E> {
+        private final List<Condition<E>> parts;
+
+        And(List<Condition<E>> parts) {
+            // Nested ANDs are flattened so every conjunct is visible to the planner
+            List<Condition<E>> flat = new ArrayList<>();
+            for (Condition<E> part : parts) {
+                flat.addAll(part.conjuncts());
+            }
+            this.parts = flat;
+        }
+
+        @Override
+        public boolean test(E entity) {
+            for (Condition<E> part : parts) {
+                if (!part.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        List<Condition<E>> conjuncts() {
+            return parts;
+        }
+
+        @Override
+        public String describe() {
+            return join(parts, " AND ");
+        }
+    }
+
+    static final class Or<E> extends Condition<E> {
+        private final List<Condition<E>> parts;
+
+        Or(List<Condition<E>> parts) {
+            this.parts = new ArrayList<>(parts);
+        }
+
+        @Override
+        public boolean test(E entity) {
+            for (Condition<E> part : parts) {
+                if (part.test(entity)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String describe() {
+            return "(" + join(parts, " OR ") + ")";
+        }
+    }
+
+    static final class Not<E> extends Condition<E> {
+        private final Condition<E> inner;
+
+        Not(Condition<E> inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean test(E entity) {
+            return !inner.test(entity);
+        }
+
+        @Override
+        public String describe() {
+            return "NOT (" + inner.describe() + ")";
+        }
+    }
+
+    static final class Custom<E> extends Condition<E> {
+        private final String description;
+        private final Predicate<E> predicate;
+
+        Custom(String description, Predicate<E> predicate) {
+            this.description = description;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(E entity) {
+            return predicate.test(entity);
+        }
+
+        @Override
+        public String describe() {
+            return description;
+        }
+    }
+
+    private static <E> String join(List<Condition<E>> parts, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (Condition<E> part : parts) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(part.describe());
+        }
+        return sb.toString();
+    }
+}
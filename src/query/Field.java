@@ -0,0 +1,27 @@
+package query;
+
+import java.util.function.Function;
+
+// A named, typed attribute of an entity that queries can filter and sort on
+public final class Field<E, V> {
+    private final String name;
+    private final Function<E, V> getter;
+
+    Field(String name, Function<E, V> getter) {
+        this.name = name;
+        this.getter = getter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(E entity) {
+        return getter.apply(entity);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,62 @@
+package query;
+
+import model.Appointment;
+import model.Gender;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// The queryable fields of each entity
+public final class Fields {
+    private Fields() {
+    }
+
+    public static final class Appointments {
+        public static final Field<Appointment, String> ID = new Field<>("appointmentId", Appointment::getAppointmentId);
+        public static final Field<Appointment, String> PATIENT_ID = new Field<>("patientId", Appointment::getPatientId);
+        public static final Field<Appointment, String> DOCTOR_ID = new Field<>("doctorId", Appointment::getDoctorId);
+        public static final Field<Appointment, LocalDateTime> DATE_TIME = new Field<>("dateTime", Appointment::getDateTime);
+        public static final Field<Appointment, Integer> DURATION = new Field<>("durationMinutes", Appointment::getDurationMinutes);
+        public static final Field<Appointment, Appointment.AppointmentStatus> STATUS = new Field<>("status", Appointment::getStatus);
+
+        private Appointments() {
+        }
+    }
+
+    public static final class Patients {
+        public static final Field<Patient, String> ID = new Field<>("patientId", Patient::getPatientId);
+        public static final Field<Patient, String> NAME = new Field<>("name", Patient::getName);
+        public static final Field<Patient, Integer> AGE = new Field<>("age", Patient::getAge);
+        public static final Field<Patient, Gender> GENDER = new Field<>("gender", Patient::getGender);
+        public static final Field<Patient, String> DOCTOR_ID = new Field<>("assignedDoctorId", Patient::getAssignedDoctorId);
+
+        private Patients() {
+        }
+    }
+
+    public static final class Prescriptions {
+        public static final Field<Prescription, String> ID = new Field<>("prescriptionId", Prescription::getPrescriptionId);
+        public static final Field<Prescription, String> PATIENT_ID = new Field<>("patientId", Prescription::getPatientId);
+        public static final Field<Prescription, String> DOCTOR_ID = new Field<>("prescribingDoctorId", Prescription::getPrescribingDoctorId);
+        public static final Field<Prescription, String> DRUG_NAME = new Field<>("drugName", Prescription::getDrugName);
+        public static final Field<Prescription, Integer> DURATION_DAYS = new Field<>("durationDays", Prescription::getDurationDays);
+        public static final Field<Prescription, LocalDate> PRESCRIBED_DATE = new Field<>("prescribedDate", Prescription::getPrescribedDate);
+
+        private Prescriptions() {
+        }
+    }
+
+    public static final class Treatments {
+        public static final Field<TreatmentRecord, String> ID = new Field<>("treatmentId", TreatmentRecord::getTreatmentId);
+        public static final Field<TreatmentRecord, String> PATIENT_ID = new Field<>("patientId", TreatmentRecord::getPatientId);
+        public static final Field<TreatmentRecord, String> DOCTOR_ID = new Field<>("attendingDoctorId", TreatmentRecord::getAttendingDoctorId);
+        public static final Field<TreatmentRecord, String> DIAGNOSIS = new Field<>("diagnosis", TreatmentRecord::getDiagnosis);
+        public static final Field<TreatmentRecord, LocalDate> DATE = new Field<>("date", TreatmentRecord::getDate);
+
+        private Treatments() {
+        }
+    }
+}
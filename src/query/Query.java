@@ -0,0 +1,103 @@
+package query;
+
+import model.Appointment;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+
+import java.util.Comparator;
+
+// A query over one entity type: filter, optional ordering and limit. Run it with QueryEngine.
+//   Query.appointments()
+//        .where(Condition.eq(Fields.Appointments.DOCTOR_ID, "S2002"))
+//        .where(Condition.between(Fields.Appointments.DATE_TIME, monday, friday))
+//        .orderBy(Fields.Appointments.DATE_TIME, true)
+//        .limit(20)
+public final class Query<E> {
+    public enum Source {
+        PATIENTS,
+        APPOINTMENTS,
+        PRESCRIPTIONS,
+        TREATMENTS
+    }
+
+    private final Source source;
+    private Condition<E> condition;
+    private Field<E, ?> orderField;
+    private Comparator<E> order;
+    private boolean ascending = true;
+    private int limit = -1;
+
+    private Query(Source source) {
+        this.source = source;
+    }
+
+    public static Query<Patient> patients() {
+        return new Query<>(Source.PATIENTS);
+    }
+
+    public static Query<Appointment> appointments() {
+        return new Query<>(Source.APPOINTMENTS);
+    }
+
+    public static Query<Prescription> prescriptions() {
+        return new Query<>(Source.PRESCRIPTIONS);
+    }
+
+    public static Query<TreatmentRecord> treatments() {
+        return new Query<>(Source.TREATMENTS);
+    }
+
+    // Repeated calls are ANDed together
+    public Query<E> where(Condition<E> condition) {
+        if (condition == null) {
+            throw new IllegalArgumentException("Condition cannot be null");
+        }
+        this.condition = this.condition == null ? condition : this.condition.and(condition);
+        return this;
+    }
+
+    // Nulls sort last either way
+    public <V extends Comparable<? super V>> Query<E> orderBy(Field<E, V> field, boolean ascending) {
+        if (field == null) {
+            throw new IllegalArgumentException("Order field cannot be null");
+        }
+        Comparator<V> values = ascending ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        this.orderField = field;
+        this.order = Comparator.comparing(field::get, Comparator.nullsLast(values));
+        this.ascending = ascending;
+        return this;
+    }
+
+    public Query<E> limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    Source getSource() {
+        return source;
+    }
+
+    Condition<E> getCondition() {
+        return condition;
+    }
+
+    Field<E, ?> getOrderField() {
+        return orderField;
+    }
+
+    Comparator<E> getOrder() {
+        return order;
+    }
+
+    boolean isAscending() {
+        return ascending;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+}
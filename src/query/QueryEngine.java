@@ -0,0 +1,217 @@
+package query;
+
+import model.Appointment;
+import model.Patient;
+import model.Prescription;
+import model.TreatmentRecord;
+import repository.AppointmentRespository;
+import repository.PatientRepository;
+import repository.PrescriptionRepository;
+import repository.TreatmentRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Plans and runs queries against the repositories. Equality and range conditions on indexed fields pick the
+// access path, trying each entity's indexes in a fixed order (primary key, then the index that is usually
+// narrowest for that entity); every other condition is pushed into the row loop of that path.
+// Only when no index applies does it scan the whole repository, in parallel once the repository is large.
+public class QueryEngine {
+    private static final int PARALLEL_SCAN_THRESHOLD = 50_000;
+
+    private PatientRepository patientRepository;
+    private AppointmentRespository appointmentRepository;
+    private PrescriptionRepository prescriptionRepository;
+    private TreatmentRepository treatmentRepository;
+
+    public QueryEngine(PatientRepository patientRepository, AppointmentRespository appointmentRepository,
+                       PrescriptionRepository prescriptionRepository, TreatmentRepository treatmentRepository) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.treatmentRepository = treatmentRepository;
+    }
+
+    public <E> List<E> execute(Query<E> query) {
+        return plan(query).run();
+    }
+
+    public <E> String explain(Query<E> query) {
+        return plan(query).explain();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E> QueryPlan<E> plan(Query<E> query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        switch (query.getSource()) {
+            case PATIENTS:
+                return (QueryPlan<E>) planPatients((Query<Patient>) query);
+            case APPOINTMENTS:
+                return (QueryPlan<E>) planAppointments((Query<Appointment>) query);
+            case PRESCRIPTIONS:
+                return (QueryPlan<E>) planPrescriptions((Query<Prescription>) query);
+            case TREATMENTS:
+                return (QueryPlan<E>) planTreatments((Query<TreatmentRecord>) query);
+            default:
+                throw new IllegalArgumentException("Unknown query source: " + query.getSource());
+        }
+    }
+
+    private QueryPlan<Patient> planPatients(Query<Patient> query) {
+        List<Condition<Patient>> residual = conjuncts(query);
+        Condition.Eq<Patient, String> byId = takeEq(residual, Fields.Patients.ID);
+        if (byId != null) {
+            return new QueryPlan<>(query, "primary key lookup [" + byId.describe() + "]",
+                    () -> single(patientRepository.findById(byId.value)), residual, false, false);
+        }
+        return scan(query, residual, patientRepository.count(), patientRepository::findAll);
+    }
+
+    private QueryPlan<Appointment> planAppointments(Query<Appointment> query) {
+        List<Condition<Appointment>> residual = conjuncts(query);
+        Condition.Eq<Appointment, String> byId = takeEq(residual, Fields.Appointments.ID);
+        if (byId != null) {
+            return new QueryPlan<>(query, "primary key lookup [" + byId.describe() + "]",
+                    () -> single(appointmentRepository.findById(byId.value)), residual, false, false);
+        }
+
+        Condition.Range<Appointment, LocalDateTime> byTime = takeRange(residual, Fields.Appointments.DATE_TIME);
+        // Every time index hands rows out by start time
+        boolean presorted = query.getOrderField() == Fields.Appointments.DATE_TIME && query.isAscending();
+        // A patient has a few appointments, a doctor many more, so try the patient's timeline first
+        Condition.Eq<Appointment, String> byPatient = takeEq(residual, Fields.Appointments.PATIENT_ID);
+        if (byPatient != null) {
+            LocalDateTime from = byTime != null ? byTime.from : null;
+            LocalDateTime to = byTime != null ? byTime.to : null;
+            String access = byTime != null
+                    ? "patient timeline index range [" + byPatient.describe() + ", " + byTime.describe() + "]"
+                    : "patient timeline index [" + byPatient.describe() + "]";
+            return new QueryPlan<>(query, access,
+                    () -> emptyRange(from, to) ? Collections.emptyList()
+                            : appointmentRepository.viewPatientTimeline(byPatient.value, from, to),
+                    residual, false, presorted);
+        }
+        Condition.Eq<Appointment, String> byDoctor = takeEq(residual, Fields.Appointments.DOCTOR_ID);
+        if (byDoctor != null) {
+            LocalDateTime from = byTime != null ? byTime.from : null;
+            LocalDateTime to = byTime != null ? byTime.to : null;
+            String access = byTime != null
+                    ? "doctor timeline index range [" + byDoctor.describe() + ", " + byTime.describe() + "]"
+                    : "doctor timeline index [" + byDoctor.describe() + "]";
+            return new QueryPlan<>(query, access,
+                    () -> emptyRange(from, to) ? Collections.emptyList()
+                            : appointmentRepository.viewDoctorTimeline(byDoctor.value, from, to),
+                    residual, false, presorted);
+        }
+        if (byTime != null) {
+            return new QueryPlan<>(query, "time index range [" + byTime.describe() + "]",
+                    () -> emptyRange(byTime.from, byTime.to) ? Collections.emptyList()
+                            : appointmentRepository.viewTimeIndex(byTime.from, byTime.to),
+                    residual, false, presorted);
+        }
+        return scan(query, residual, appointmentRepository.count(), appointmentRepository::findAll);
+    }
+
+    private QueryPlan<Prescription> planPrescriptions(Query<Prescription> query) {
+        List<Condition<Prescription>> residual = conjuncts(query);
+        Condition.Eq<Prescription, String> byId = takeEq(residual, Fields.Prescriptions.ID);
+        if (byId != null) {
+            return new QueryPlan<>(query, "primary key lookup [" + byId.describe() + "]",
+                    () -> single(prescriptionRepository.findById(byId.value)), residual, false, false);
+        }
+        // A patient has few prescriptions, a drug or a doctor may have many, so try them in that order
+        Condition.Eq<Prescription, String> byPatient = takeEq(residual, Fields.Prescriptions.PATIENT_ID);
+        if (byPatient != null) {
+            return new QueryPlan<>(query, "patient index [" + byPatient.describe() + "]",
+                    () -> prescriptionRepository.findByPatientId(byPatient.value), residual, false, false);
+        }
+        Condition.Eq<Prescription, String> byDrug = findEq(residual, Fields.Prescriptions.DRUG_NAME);
+        if (byDrug != null) {
+            // The drug index ignores case, so the exact match stays on as a filter
+            return new QueryPlan<>(query, "drug index [" + byDrug.describe() + "]",
+                    () -> prescriptionRepository.findByDrugName(byDrug.value), residual, false, false);
+        }
+        Condition.Eq<Prescription, String> byDoctor = takeEq(residual, Fields.Prescriptions.DOCTOR_ID);
+        if (byDoctor != null) {
+            return new QueryPlan<>(query, "doctor index [" + byDoctor.describe() + "]",
+                    () -> prescriptionRepository.findByDoctorId(byDoctor.value), residual, false, false);
+        }
+        return scan(query, residual, prescriptionRepository.count(), prescriptionRepository::findAll);
+    }
+
+    private QueryPlan<TreatmentRecord> planTreatments(Query<TreatmentRecord> query) {
+        List<Condition<TreatmentRecord>> residual = conjuncts(query);
+        Condition.Eq<TreatmentRecord, String> byId = takeEq(residual, Fields.Treatments.ID);
+        if (byId != null) {
+            return new QueryPlan<>(query, "primary key lookup [" + byId.describe() + "]",
+                    () -> single(treatmentRepository.findById(byId.value)), residual, false, false);
+        }
+        Condition.Eq<TreatmentRecord, String> byPatient = takeEq(residual, Fields.Treatments.PATIENT_ID);
+        if (byPatient != null) {
+            return new QueryPlan<>(query, "patient index [" + byPatient.describe() + "]",
+                    () -> treatmentRepository.findByPatientId(byPatient.value), residual, false, false);
+        }
+        Condition.Eq<TreatmentRecord, String> byDoctor = takeEq(residual, Fields.Treatments.DOCTOR_ID);
+        if (byDoctor != null) {
+            return new QueryPlan<>(query, "doctor index [" + byDoctor.describe() + "]",
+                    () -> treatmentRepository.findByDoctorId(byDoctor.value), residual, false, false);
+        }
+        return scan(query, residual, treatmentRepository.count(), treatmentRepository::findAll);
+    }
+
+    private static <E> QueryPlan<E> scan(Query<E> query, List<Condition<E>> residual, int size,
+                                         Supplier<List<E>> all) {
+        boolean parallel = size >= PARALLEL_SCAN_THRESHOLD && !residual.isEmpty();
+        return new QueryPlan<>(query, "full scan (" + size + " rows)", all::get, residual, parallel, false);
+    }
+
+    private static <E> List<Condition<E>> conjuncts(Query<E> query) {
+        return query.getCondition() == null ? new ArrayList<>() : new ArrayList<>(query.getCondition().conjuncts());
+    }
+
+    // Remove and return an equality on the field, so the index that answers it isn't re-checked per row
+    private static <E, V> Condition.Eq<E, V> takeEq(List<Condition<E>> conjuncts, Field<E, V> field) {
+        Condition.Eq<E, V> eq = findEq(conjuncts, field);
+        if (eq != null) {
+            conjuncts.remove(eq);
+        }
+        return eq;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E, V> Condition.Eq<E, V> findEq(List<Condition<E>> conjuncts, Field<E, V> field) {
+        for (Condition<E> condition : conjuncts) {
+            if (condition instanceof Condition.Eq && ((Condition.Eq<E, ?>) condition).field == field
+                    && ((Condition.Eq<E, ?>) condition).value != null) {
+                return (Condition.Eq<E, V>) condition;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E, V extends Comparable<? super V>> Condition.Range<E, V> takeRange(
+            List<Condition<E>> conjuncts, Field<E, V> field) {
+        for (Condition<E> condition : conjuncts) {
+            if (condition instanceof Condition.Range && ((Condition.Range<E, ?>) condition).field == field) {
+                conjuncts.remove(condition);
+                return (Condition.Range<E, V>) condition;
+            }
+        }
+        return null;
+    }
+
+    private static boolean emptyRange(LocalDateTime from, LocalDateTime to) {
+        return from != null && to != null && !from.isBefore(to);
+    }
+
+    private static <E> Collection<E> single(E entity) {
+        return entity == null ? Collections.emptyList() : Collections.singletonList(entity);
+    }
+}
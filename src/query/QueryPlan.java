@@ -0,0 +1,102 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// How a query will run: one access path, the filters left to apply per row, and whether a sort is needed
+public final class QueryPlan<E> {
+    private final Query<E> query;
+    private final String access;
+    private final Supplier<Collection<E>> rows;
+    private final List<Condition<E>> residual;
+    private final boolean parallel;
+    private final boolean presorted; // rows already come out in the requested order
+
+    QueryPlan(Query<E> query, String access, Supplier<Collection<E>> rows, List<Condition<E>> residual,
+              boolean parallel, boolean presorted) {
+        this.query = query;
+        this.access = access;
+        this.rows = rows;
+        this.residual = residual;
+        this.parallel = parallel;
+        this.presorted = presorted;
+    }
+
+    List<E> run() {
+        Collection<E> source = rows.get();
+        int limit = query.getLimit();
+        List<E> result;
+        if (parallel) {
+            result = source.parallelStream().filter(this::matches).collect(Collectors.toList());
+        } else {
+            result = new ArrayList<>();
+            // With the order already given by the index, the first 'limit' matches are the answer
+            boolean stopEarly = limit > 0 && (query.getOrder() == null || presorted);
+            for (E row : source) {
+                if (matches(row)) {
+                    result.add(row);
+                    if (stopEarly && result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (query.getOrder() != null && !presorted) {
+            result.sort(query.getOrder());
+        }
+        if (limit > 0 && result.size() > limit) {
+            result = new ArrayList<>(result.subList(0, limit));
+        }
+        return result;
+    }
+
+    private boolean matches(E row) {
+        for (Condition<E> condition : residual) {
+            if (!condition.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getAccess() {
+        return access;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Query on ").append(query.getSource()).append("\n");
+        sb.append("  Access: ").append(access).append(parallel ? " (parallel)" : "").append("\n");
+        sb.append("  Filter: ");
+        if (residual.isEmpty()) {
+            sb.append("none");
+        } else {
+            for (int i = 0; i < residual.size(); i++) {
+                sb.append(i == 0 ? "" : " AND ").append(residual.get(i).describe());
+            }
+        }
+        sb.append("\n");
+        if (query.getOrderField() != null) {
+            sb.append("  Order: ").append(query.getOrderField()).append(query.isAscending() ? " ASC" : " DESC")
+                    .append(presorted ? " (index order, no sort)" : " (sort)").append("\n");
+        }
+        if (query.getLimit() > 0) {
+            sb.append("  Limit: ").append(query.getLimit())
+                    .append(!parallel && (query.getOrder() == null || presorted) ? " (stops early)" : "")
+                    .append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
@@ -0,0 +1,171 @@
+package report;
+
+import model.Doctor;
+import model.Gender;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Month-end census: per-doctor and per-department activity plus hospital-wide patient counts
+public class CensusReport {
+    private YearMonth month;
+    private List<DoctorCensus> doctors;
+    private Map<String, DoctorCensus> departments;
+    private long[] patientsByAgeBand;
+    private long[] patientsByGender;
+    private long totalPatients;
+    private long recordsScanned;
+    private int parallelism;
+    private long elapsedMillis; //fork/join tally only
+    private long snapshotMillis; //copying the repositories into arrays beforehand, single-threaded
+
+    CensusReport(YearMonth month, List<Doctor> doctorList, long[] tally, int patientBase,
+                 long recordsScanned, int parallelism, long elapsedMillis, long snapshotMillis) {
+        this.month = month;
+        this.doctors = new ArrayList<>();
+        this.departments = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < doctorList.size(); i++) {
+            Doctor doctor = doctorList.get(i);
+            long[] metrics = new long[CensusReportEngine.METRICS];
+            System.arraycopy(tally, i * CensusReportEngine.METRICS, metrics, 0, CensusReportEngine.METRICS);
+            doctors.add(new DoctorCensus(doctor.getName() + " (" + doctor.getStaffId() + ")", metrics));
+            departments.computeIfAbsent(doctor.getDepartment(),
+                    department -> new DoctorCensus(department, new long[CensusReportEngine.METRICS])).add(metrics);
+        }
+        int bands = CensusReportEngine.AGE_BAND_UPPER_BOUNDS.length;
+        this.patientsByAgeBand = new long[bands];
+        System.arraycopy(tally, patientBase, patientsByAgeBand, 0, bands);
+        this.patientsByGender = new long[Gender.values().length];
+        System.arraycopy(tally, patientBase + bands, patientsByGender, 0, patientsByGender.length);
+        this.totalPatients = tally[patientBase + bands + patientsByGender.length];
+        this.recordsScanned = recordsScanned;
+        this.parallelism = parallelism;
+        this.elapsedMillis = elapsedMillis;
+        this.snapshotMillis = snapshotMillis;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public List<DoctorCensus> getDoctors() {
+        return doctors;
+    }
+
+    public List<DoctorCensus> getDepartments() {
+        return new ArrayList<>(departments.values());
+    }
+
+    public long getTotalPatients() {
+        return totalPatients;
+    }
+
+    public long getPatientsWithGender(Gender gender) {
+        return patientsByGender[gender.ordinal()];
+    }
+
+    public long[] getPatientsByAgeBand() {
+        return patientsByAgeBand.clone();
+    }
+
+    public long getRecordsScanned() {
+        return recordsScanned;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getSnapshotMillis() {
+        return snapshotMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n========== CENSUS REPORT ").append(month).append(" ==========\n");
+        sb.append(String.format("%-32s %6s %7s %9s %8s %9s %6s %6s%n",
+                "Doctor", "Panel", "Visits", "Scheduled", "No-shows", "Cancelled", "Rx", "Tx"));
+        for (DoctorCensus row : doctors) {
+            sb.append(row.format()).append("\n");
+        }
+
+        sb.append("\n--- By Department ---\n");
+        for (DoctorCensus row : departments.values()) {
+            sb.append(row.format()).append("\n");
+        }
+
+        sb.append("\n--- Patients (").append(totalPatients).append(") ---\n");
+        sb.append(String.format("Age 0-17: %d | 18-39: %d | 40-64: %d | 65+: %d%n",
+                patientsByAgeBand[0], patientsByAgeBand[1], patientsByAgeBand[2], patientsByAgeBand[3]));
+        for (Gender gender : Gender.values()) {
+            sb.append(gender).append(": ").append(patientsByGender[gender.ordinal()]).append("\n");
+        }
+
+        sb.append(String.format("%n%d records in %d ms on %d threads (after %d ms taking snapshots)%n",
+                recordsScanned, elapsedMillis, parallelism, snapshotMillis));
+        sb.append("==========================================\n");
+        return sb.toString();
+    }
+
+    // One row of the report: a doctor, or a department's doctors added together
+    public static class DoctorCensus {
+        private String name;
+        private long[] metrics;
+
+        DoctorCensus(String name, long[] metrics) {
+            this.name = name;
+            this.metrics = metrics;
+        }
+
+        private void add(long[] other) {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i] += other[i];
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPanelSize() {
+            return metrics[CensusReportEngine.PANEL];
+        }
+
+        public long getVisitsCompleted() {
+            return metrics[CensusReportEngine.VISITS_COMPLETED];
+        }
+
+        public long getStillScheduled() {
+            return metrics[CensusReportEngine.STILL_SCHEDULED];
+        }
+
+        public long getNoShows() {
+            return metrics[CensusReportEngine.NO_SHOWS];
+        }
+
+        public long getCancelled() {
+            return metrics[CensusReportEngine.CANCELLED];
+        }
+
+        public long getPrescriptions() {
+            return metrics[CensusReportEngine.PRESCRIPTIONS];
+        }
+
+        public long getTreatments() {
+            return metrics[CensusReportEngine.TREATMENTS];
+        }
+
+        private String format() {
+            return String.format("%-32s %6d %7d %9d %8d %9d %6d %6d", name, getPanelSize(), getVisitsCompleted(),
+                    getStillScheduled(), getNoShows(), getCancelled(), getPrescriptions(), getTreatments());
+        }
+    }
+}
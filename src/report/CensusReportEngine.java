@@ -0,0 +1,226 @@
+package report;
+
+import model.Appointment;
+import model.Doctor;
+import model.Gender;
+import model.Patient;
+import model.Prescription;
+import model.Staff;
+import model.TreatmentRecord;
+import repository.AppointmentRespository;
+import repository.PatientRepository;
+import repository.PrescriptionRepository;
+import repository.StaffRepository;
+import repository.TreatmentRepository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Builds the month-end census by splitting every record array into ranges and tallying them on a fork/join pool.
+// Each leaf counts into its own flat long[] (doctor x metric, plus hospital totals), and partial arrays are
+// summed on the way back up, so the workers never share a counter.
+public class CensusReportEngine {
+    private static final int LEAF_SIZE = 16 * 1024;
+
+    // Per-doctor metrics, in the order they sit in the flat tally
+    static final int PANEL = 0;
+    static final int VISITS_COMPLETED = 1;
+    static final int STILL_SCHEDULED = 2;
+    static final int NO_SHOWS = 3;
+    static final int CANCELLED = 4;
+    static final int PRESCRIPTIONS = 5;
+    static final int TREATMENTS = 6;
+    static final int METRICS = 7;
+
+    // Hospital-wide patient counts after the per-doctor block
+    static final int[] AGE_BAND_UPPER_BOUNDS = {17, 39, 64, Integer.MAX_VALUE};
+    private static final int PATIENT_TOTALS = AGE_BAND_UPPER_BOUNDS.length + Gender.values().length + 1;
+
+    private PatientRepository patientRepository;
+    private StaffRepository staffRepository;
+    private AppointmentRespository appointmentRepository;
+    private PrescriptionRepository prescriptionRepository;
+    private TreatmentRepository treatmentRepository;
+
+    public CensusReportEngine(PatientRepository patientRepository, StaffRepository staffRepository,
+                              AppointmentRespository appointmentRepository,
+                              PrescriptionRepository prescriptionRepository,
+                              TreatmentRepository treatmentRepository) {
+        this.patientRepository = patientRepository;
+        this.staffRepository = staffRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.treatmentRepository = treatmentRepository;
+    }
+
+    // Census for a month on the common pool, i.e. all cores
+    public CensusReport generate(YearMonth month) {
+        return generate(month, ForkJoinPool.commonPool());
+    }
+
+    public CensusReport generate(YearMonth month, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return generate(month, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public CensusReport generate(YearMonth month, ForkJoinPool pool) {
+        if (month == null) {
+            throw new IllegalArgumentException("Month cannot be null");
+        }
+        long snapshotStarted = System.nanoTime();
+
+        List<Doctor> doctors = new ArrayList<>();
+        for (Staff staff : staffRepository.findAll()) {
+            if (staff instanceof Doctor) {
+                doctors.add((Doctor) staff);
+            }
+        }
+        Map<String, Integer> doctorSlots = new HashMap<>();
+        for (int i = 0; i < doctors.size(); i++) {
+            doctorSlots.put(doctors.get(i).getStaffId(), i);
+        }
+        int patientBase = doctors.size() * METRICS;
+        int tallySize = patientBase + PATIENT_TOTALS;
+        LocalDate first = month.atDay(1);
+        LocalDate last = month.atEndOfMonth();
+
+        // Snapshots, so the workers read plain arrays while the repositories keep taking writes
+        Patient[] patients = patientRepository.findAll().toArray(new Patient[0]);
+        Appointment[] appointments = appointmentRepository.findAll().toArray(new Appointment[0]);
+        Prescription[] prescriptions = prescriptionRepository.findAll().toArray(new Prescription[0]);
+        TreatmentRecord[] treatments = treatmentRepository.findAll().toArray(new TreatmentRecord[0]);
+
+        TallyTask<Patient> patientTask = new TallyTask<>(patients, 0, patients.length, tallySize, (patient, tally) -> {
+            Integer slot = slotOf(doctorSlots, patient.getAssignedDoctorId());
+            if (slot != null) {
+                tally[slot * METRICS + PANEL]++;
+            }
+            int band = 0;
+            while (patient.getAge() > AGE_BAND_UPPER_BOUNDS[band]) {
+                band++;
+            }
+            tally[patientBase + band]++;
+            tally[patientBase + AGE_BAND_UPPER_BOUNDS.length + patient.getGender().ordinal()]++;
+            tally[patientBase + PATIENT_TOTALS - 1]++;
+        });
+        TallyTask<Appointment> appointmentTask = new TallyTask<>(appointments, 0, appointments.length, tallySize,
+                (appointment, tally) -> {
+                    LocalDate day = appointment.getDateTime().toLocalDate();
+                    Integer slot = slotOf(doctorSlots, appointment.getDoctorId());
+                    if (slot == null || day.isBefore(first) || day.isAfter(last)) {
+                        return;
+                    }
+                    tally[slot * METRICS + metricFor(appointment.getStatus())]++;
+                });
+        TallyTask<Prescription> prescriptionTask = new TallyTask<>(prescriptions, 0, prescriptions.length, tallySize,
+                (prescription, tally) -> {
+                    Integer slot = slotOf(doctorSlots, prescription.getPrescribingDoctorId());
+                    LocalDate day = prescription.getPrescribedDate();
+                    if (slot != null && !day.isBefore(first) && !day.isAfter(last)) {
+                        tally[slot * METRICS + PRESCRIPTIONS]++;
+                    }
+                });
+        TallyTask<TreatmentRecord> treatmentTask = new TallyTask<>(treatments, 0, treatments.length, tallySize,
+                (treatment, tally) -> {
+                    Integer slot = slotOf(doctorSlots, treatment.getAttendingDoctorId());
+                    LocalDate day = treatment.getDate();
+                    if (slot != null && !day.isBefore(first) && !day.isAfter(last)) {
+                        tally[slot * METRICS + TREATMENTS]++;
+                    }
+                });
+
+        // Only the fork/join phase is timed as the census; the serial snapshot copies are reported separately
+        long started = System.nanoTime();
+        long snapshotMillis = (started - snapshotStarted) / 1_000_000;
+        long[] tally = pool.invoke(new RecursiveTask<long[]>() {
+            @Override
+            protected long[] compute() {
+                ForkJoinTask.invokeAll(patientTask, appointmentTask, prescriptionTask, treatmentTask);
+                long[] total = patientTask.join();
+                addInto(total, appointmentTask.join());
+                addInto(total, prescriptionTask.join());
+                addInto(total, treatmentTask.join());
+                return total;
+            }
+        });
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        long records = (long) patients.length + appointments.length + prescriptions.length + treatments.length;
+        return new CensusReport(month, doctors, tally, patientBase, records, pool.getParallelism(), elapsedMillis,
+                snapshotMillis);
+    }
+
+    private static Integer slotOf(Map<String, Integer> doctorSlots, String doctorId) {
+        return doctorId == null ? null : doctorSlots.get(doctorId);
+    }
+
+    private static int metricFor(Appointment.AppointmentStatus status) {
+        switch (status) {
+            case COMPLETED: return VISITS_COMPLETED;
+            case NO_SHOW: return NO_SHOWS;
+            case CANCELLED: return CANCELLED;
+            default: return STILL_SCHEDULED;
+        }
+    }
+
+    private static void addInto(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    interface Tally<T> {
+        void count(T record, long[] tally);
+    }
+
+    // Tallies records[from, to) into a fresh array, splitting in half until a range is small enough
+    private static class TallyTask<T> extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] records;
+        private final int from;
+        private final int to;
+        private final int tallySize;
+        private final Tally<T> tally;
+
+        TallyTask(T[] records, int from, int to, int tallySize, Tally<T> tally) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.tallySize = tallySize;
+            this.tally = tally;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_SIZE) {
+                long[] counts = new long[tallySize];
+                for (int i = from; i < to; i++) {
+                    tally.count(records[i], counts);
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            TallyTask<T> left = new TallyTask<>(records, from, mid, tallySize, tally);
+            TallyTask<T> right = new TallyTask<>(records, mid, to, tallySize, tally);
+            left.fork();
+            long[] counts = right.compute();
+            addInto(counts, left.join());
+            return counts;
+        }
+    }
+}
@@ -1,26 +1,157 @@
 package repository;
 
 import model.Appointment;
+import model.AppointmentSeries;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class AppointmentRespository {
+    //Orders appointments by start time, ties broken by ID so every appointment has its own position
+    static final Comparator<Appointment> BY_TIME =
+            Comparator.comparing(Appointment::getDateTime).thenComparing(Appointment::getAppointmentId);
+
+    private static final DoctorCalendar EMPTY_CALENDAR = new DoctorCalendar(); //never booked, only searched
+
     private Map<String, Appointment> appointmentMap; //enhances fast ID lookup. Map.get(key) is 0(1)
+    private Map<String, DoctorCalendar> calendars; //doctorId -> slot bitmap of SCHEDULED appointments, plus series rules
+    private Map<String, Reservation> reservations; //appointmentId -> the slots it currently holds
+    private Map<String, NavigableSet<Appointment>> doctorIndex; //doctorId -> appointments in time order
+    private Map<String, NavigableSet<Appointment>> patientIndex; //patientId -> appointments in time order
+    private NavigableSet<Appointment> timeIndex; //every appointment in time order, for hospital-wide range scans
 
     public AppointmentRespository() {
-        this.appointmentMap = new HashMap<>();
+        this.appointmentMap = new ConcurrentHashMap<>();
+        this.calendars = new ConcurrentHashMap<>();
+        this.reservations = new ConcurrentHashMap<>();
+        this.doctorIndex = new ConcurrentHashMap<>();
+        this.patientIndex = new ConcurrentHashMap<>();
+        this.timeIndex = new ConcurrentSkipListSet<>(BY_TIME);
     }
 
+    //Adds the appointment and books its slots. False if the ID exists or a SCHEDULED appointment would overlap.
     public boolean addAppointment(Appointment appointment) {
-        if(appointmentMap.containsKey(appointment.getAppointmentId())){
+        boolean scheduled = appointment.getStatus() == Appointment.AppointmentStatus.SCHEDULED;
+        if (scheduled && !calendar(appointment.getDoctorId())
+                .tryReserve(appointment.getDateTime(), appointment.getDurationMinutes())) {
+            return false;
+        }
+        if (appointmentMap.putIfAbsent(appointment.getAppointmentId(), appointment) != null) {
+            if (scheduled) {
+                calendar(appointment.getDoctorId())
+                        .release(appointment.getDateTime(), appointment.getDurationMinutes());
+            }
+            return false;
+        }
+        if (scheduled) {
+            reservations.put(appointment.getAppointmentId(), new Reservation(appointment));
+        }
+        index(appointment);
+        return true;
+    }
+
+    //Books slots for an appointment that doesn't exist yet. Other bookings see the time as taken, but no
+    //appointment is visible until addAppointment(appointment, hold). Null if any slot is already taken.
+    public Reservation tryHold(String doctorId, LocalDateTime start, int durationMinutes) {
+        if (!calendar(doctorId).tryReserve(start, durationMinutes)) {
+            return null;
+        }
+        return new Reservation(doctorId, start, durationMinutes);
+    }
+
+    public void releaseHold(Reservation hold) {
+        calendar(hold.doctorId).release(hold.start, hold.durationMinutes);
+    }
+
+    //Adds a SCHEDULED appointment into the slots of a hold taken for exactly its doctor and time.
+    //False, leaving the hold with the caller, if the ID exists.
+    public boolean addAppointment(Appointment appointment, Reservation hold) {
+        if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED
+                || !hold.sameSlots(new Reservation(appointment))) {
+            throw new IllegalArgumentException("Hold " + hold + " does not match appointment " + appointment);
+        }
+        if (appointmentMap.putIfAbsent(appointment.getAppointmentId(), appointment) != null) {
             return false;
         }
-        appointmentMap.put(appointment.getAppointmentId(), appointment);
+        reservations.put(appointment.getAppointmentId(), hold);
+        index(appointment);
         return true;
     }
 
+    //Files the series with its doctor's calendar, checking every pending occurrence under the calendar lock, so a
+    //series and a booking made at the same time can never both get the same time. False if any slot is taken.
+    //From then on the series' pending occurrences block their time as a rule; skipping or materializing an
+    //occurrence takes it out of the rule, and releaseSeries takes the whole series out.
+    public boolean reserveSeries(AppointmentSeries series) {
+        return calendar(series.getDoctorId()).tryAddSeries(series);
+    }
+
+    //The series stops holding time: it was cancelled or all its occurrences are appointments now
+    public void releaseSeries(AppointmentSeries series) {
+        calendar(series.getDoctorId()).removeSeries(series);
+    }
+
+    //Adds a pending occurrence as a SCHEDULED appointment, booking its slots in the calendar bitmap.
+    //Null if it was added before. The caller serializes this with other changes to the series.
+    public Appointment addOccurrence(AppointmentSeries series, int index) {
+        Appointment occurrence = series.toAppointment(index);
+        if (appointmentMap.putIfAbsent(occurrence.getAppointmentId(), occurrence) != null) {
+            return null;
+        }
+        if (!calendar(series.getDoctorId()).tryReserveOccurrence(occurrence.getDateTime(),
+                occurrence.getDurationMinutes())) {
+            // The series held this time since it was created, so nothing else should have been booked into it
+            appointmentMap.remove(occurrence.getAppointmentId());
+            throw slotTaken(occurrence);
+        }
+        reservations.put(occurrence.getAppointmentId(), new Reservation(occurrence));
+        index(occurrence);
+        return occurrence;
+    }
+
+    //Cancels a SCHEDULED appointment at expectedVersion but keeps its slots booked, returned as a hold.
+    //The caller either releases the hold or puts the appointment back with restoreFromHold.
+    //Null if the appointment is gone or not SCHEDULED; VersionConflictException if it moved on.
+    public Reservation cancelAndHold(String appointmentId, long expectedVersion) {
+        Reservation[] held = new Reservation[1];
+        appointmentMap.computeIfPresent(appointmentId, (id, current) -> {
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            if (current.getStatus() == Appointment.AppointmentStatus.SCHEDULED) {
+                current.setStatus(Appointment.AppointmentStatus.CANCELLED);
+                current.setVersion(expectedVersion + 1);
+                held[0] = reservations.remove(id);
+            }
+            return current;
+        });
+        return held[0];
+    }
+
+    //Undo cancelAndHold: the appointment is SCHEDULED again in its held slots, whatever its version.
+    //False, leaving the hold with the caller, if someone changed it to another status in between.
+    public boolean restoreFromHold(String appointmentId, Reservation hold) {
+        boolean[] restored = new boolean[1];
+        appointmentMap.computeIfPresent(appointmentId, (id, current) -> {
+            if (current.getStatus() == Appointment.AppointmentStatus.CANCELLED
+                    && hold.sameSlots(new Reservation(current))) {
+                current.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+                current.setVersion(current.getVersion() + 1);
+                reservations.put(id, hold);
+                restored[0] = true;
+            }
+            return current;
+        });
+        return restored[0];
+    }
+
     public Appointment findById(String appointmentId) {
         return appointmentMap.get(appointmentId);
     }
@@ -31,18 +162,107 @@ public class AppointmentRespository {
 
     //Find all appointments for a patient
     public List<Appointment> findByPatientId(String patientId) {
-        return appointmentMap.values().stream()
-                .filter(apt -> apt.getPatientId().equals(patientId))
-                .sorted(Comparator.comparing(Appointment::getDateTime).reversed())
-                .collect(Collectors.toList());
+        NavigableSet<Appointment> timeline = patientIndex.get(patientId);
+        return timeline == null ? new ArrayList<>() : new ArrayList<>(timeline.descendingSet());
+    }
+
+    //Appointments of a patient that overlap [from, to), in time order. Uses the per-patient time index.
+    public List<Appointment> findByPatientBetween(String patientId, LocalDateTime from, LocalDateTime to) {
+        return overlapping(patientIndex.get(patientId), from, to);
     }
 
     //Find all appointments for a doctor
     public List<Appointment> findByDoctorId(String doctorId) {
-        return appointmentMap.values().stream()
-                .filter(apt -> apt.getDoctorId().equals(doctorId))
-                .sorted(Comparator.comparing(Appointment::getDateTime).reversed())
-                .collect(Collectors.toList());
+        NavigableSet<Appointment> timeline = doctorIndex.get(doctorId);
+        return timeline == null ? new ArrayList<>() : new ArrayList<>(timeline.descendingSet());
+    }
+
+    //Appointments of a doctor that overlap [from, to), in time order. Uses the per-doctor time index.
+    public List<Appointment> findByDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+        return overlapping(doctorIndex.get(doctorId), from, to);
+    }
+
+    private static List<Appointment> overlapping(NavigableSet<Appointment> timeline, LocalDateTime from,
+                                                 LocalDateTime to) {
+        List<Appointment> result = new ArrayList<>();
+        if (timeline == null) {
+            return result;
+        }
+        // Anything starting up to the longest possible duration earlier may still run into the range
+        Appointment lowest = timeProbe(from.minusMinutes(Appointment.MAX_DURATION_MINUTES));
+        for (Appointment apt : timeline.subSet(lowest, true, timeProbe(to), false)) {
+            if (apt.getEndDateTime().isAfter(from)) {
+                result.add(apt);
+            }
+        }
+        return result;
+    }
+
+    //One page of the appointments starting in [from, to) across the hospital, in time order.
+    //Status and doctorIds are optional filters. Pass the previous page's cursor to continue after it.
+    public Page findStartingBetween(LocalDateTime from, LocalDateTime to, Appointment.AppointmentStatus status,
+                                    Set<String> doctorIds, String cursor, int limit) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range must have a start before its end");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+
+        Appointment lowest = timeProbe(from);
+        boolean inclusive = true;
+        if (cursor != null && !cursor.isEmpty()) {
+            Appointment after = decodeCursor(cursor);
+            if (BY_TIME.compare(after, lowest) >= 0) {
+                lowest = after;
+                inclusive = false;
+            }
+        }
+
+        List<Appointment> items = new ArrayList<>();
+        Appointment last = null;
+        for (Appointment apt : timeIndex.subSet(lowest, inclusive, timeProbe(to), false)) {
+            if (items.size() == limit) {
+                return new Page(items, encodeCursor(last));
+            }
+            if ((status == null || apt.getStatus() == status)
+                    && (doctorIds == null || doctorIds.contains(apt.getDoctorId()))) {
+                items.add(apt);
+                last = apt;
+            }
+        }
+        return new Page(items, null);
+    }
+
+    //Live, read-only view of a doctor's appointments starting in [from, to), in time order. Null bounds are open.
+    public Collection<Appointment> viewDoctorTimeline(String doctorId, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Appointment> timeline = doctorIndex.get(doctorId);
+        return timeline == null ? Collections.emptyList() : Collections.unmodifiableCollection(range(timeline, from, to));
+    }
+
+    //Live, read-only view of a patient's appointments starting in [from, to), in time order. Null bounds are open.
+    public Collection<Appointment> viewPatientTimeline(String patientId, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Appointment> timeline = patientIndex.get(patientId);
+        return timeline == null ? Collections.emptyList() : Collections.unmodifiableCollection(range(timeline, from, to));
+    }
+
+    //Live, read-only view of every appointment starting in [from, to), in time order. Null bounds are open.
+    public Collection<Appointment> viewTimeIndex(LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableCollection(range(timeIndex, from, to));
+    }
+
+    private static NavigableSet<Appointment> range(NavigableSet<Appointment> index, LocalDateTime from,
+                                                   LocalDateTime to) {
+        if (from != null && to != null) {
+            return index.subSet(timeProbe(from), true, timeProbe(to), false);
+        }
+        if (from != null) {
+            return index.tailSet(timeProbe(from), true);
+        }
+        if (to != null) {
+            return index.headSet(timeProbe(to), false);
+        }
+        return index;
     }
 
     //Find appointment by status
@@ -54,35 +274,155 @@ public class AppointmentRespository {
 
     //Find upcoming appointment for a doctor on a specific date.
     public List<Appointment> findByDoctorAndDate(String doctorId, LocalDateTime date) {
-        return appointmentMap.values().stream()
-                .filter(apt -> apt.getDoctorId().equals(doctorId))
-                .filter(apt -> apt.getDateTime().toLocalDate().equals(date.toLocalDate()))
+        NavigableSet<Appointment> timeline = doctorIndex.get(doctorId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        LocalDate day = date.toLocalDate();
+        return timeline.subSet(timeProbe(day.atStartOfDay()), true, timeProbe(day.plusDays(1).atStartOfDay()), false)
+                .stream()
                 .filter(apt -> apt.getStatus() == Appointment.AppointmentStatus.SCHEDULED)
-                .sorted(Comparator.comparing(Appointment::getDateTime))
                 .collect(Collectors.toList());
     }
 
     //Check if doctor has conflict at any time to prevent double booking.
     public boolean hasConflict(String doctorId, LocalDateTime dateTime) {
-        return appointmentMap.values().stream()
-                .anyMatch(apt ->
-                    apt.getDoctorId().equals(doctorId) &&
-                    apt.getStatus() == Appointment.AppointmentStatus.SCHEDULED &&
-                    apt.getDateTime().equals(dateTime)
-                );
+        return hasConflict(doctorId, dateTime, Appointment.DEFAULT_DURATION_MINUTES);
     }
 
-    //update appointment
+    //Check if any SCHEDULED appointment of the doctor overlaps [dateTime, dateTime + durationMinutes)
+    public boolean hasConflict(String doctorId, LocalDateTime dateTime, int durationMinutes) {
+        DoctorCalendar calendar = calendars.get(doctorId);
+        return calendar != null && !calendar.isFree(dateTime, durationMinutes);
+    }
+
+    //Earliest start at or after 'from' when the doctor is free for durationMinutes within working hours
+    public LocalDateTime findNextFreeSlot(String doctorId, LocalDateTime from, int durationMinutes,
+                                          LocalTime dayStart, LocalTime dayEnd, LocalDate lastDay) {
+        //A read-only search: a doctor with no calendar yet is free throughout, and doesn't get one created
+        DoctorCalendar calendar = calendars.get(doctorId);
+        return (calendar != null ? calendar : EMPTY_CALENDAR)
+                .findNextFree(from, durationMinutes, dayStart, dayEnd, lastDay);
+    }
+
+    //update appointment. Last writer wins, but the version still moves so versioned writers notice.
+    //Throws IllegalStateException, changing nothing, if a SCHEDULED replacement would overlap another booking.
     public boolean updateAppointment(Appointment appointment) {
-        if(!appointmentMap.containsKey(appointment.getAppointmentId())){
-            return false;
+        return appointmentMap.computeIfPresent(appointment.getAppointmentId(), (id, current) -> {
+            if (!syncReservation(appointment)) {
+                throw slotTaken(appointment);
+            }
+            appointment.setVersion(current.getVersion() + 1);
+            if (current != appointment) {
+                // A replacement object takes the old one's place in the time indexes
+                unindex(current);
+                index(appointment);
+            }
+            return appointment;
+        }) != null;
+    }
+
+    //Compare-and-set update. Throws VersionConflictException if the appointment moved past expectedVersion,
+    //and IllegalStateException if the change makes it SCHEDULED again but its slots were taken meanwhile.
+    //Nothing changes in either case.
+    public boolean updateAppointment(String appointmentId, long expectedVersion, Consumer<Appointment> change) {
+        return appointmentMap.computeIfPresent(appointmentId, (id, current) -> {
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            Appointment.AppointmentStatus previousStatus = current.getStatus();
+            change.accept(current);
+            if (!syncReservation(current)) {
+                current.setStatus(previousStatus);
+                throw slotTaken(current);
+            }
+            current.setVersion(expectedVersion + 1);
+            return current;
+        }) != null;
+    }
+
+    //Keep the calendar in step with the appointment: only SCHEDULED appointments hold slots, exactly those of
+    //their own doctor and time. The slots held are recorded separately, so the right ones are released even
+    //when a replacement object has a different doctor or time. Returns false, changing nothing, if the
+    //slots needed are already taken. Runs inside the map's compute for the appointment's ID.
+    private boolean syncReservation(Appointment appointment) {
+        String appointmentId = appointment.getAppointmentId();
+        Reservation held = reservations.get(appointmentId);
+        if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            if (held != null) {
+                reservations.remove(appointmentId);
+                calendar(held.doctorId).release(held.start, held.durationMinutes);
+            }
+            return true;
+        }
+
+        Reservation wanted = new Reservation(appointment);
+        if (held != null && held.sameSlots(wanted)) {
+            return true;
+        }
+        if (held != null && held.doctorId.equals(wanted.doctorId)) {
+            if (!calendar(wanted.doctorId).tryMove(held.start, held.durationMinutes,
+                    wanted.start, wanted.durationMinutes)) {
+                return false;
+            }
+        } else {
+            if (!calendar(wanted.doctorId).tryReserve(wanted.start, wanted.durationMinutes)) {
+                return false;
+            }
+            if (held != null) {
+                calendar(held.doctorId).release(held.start, held.durationMinutes);
+            }
         }
-        appointmentMap.put(appointment.getAppointmentId(), appointment);
+        reservations.put(appointmentId, wanted);
         return true;
     }
 
+    private static IllegalStateException slotTaken(Appointment appointment) {
+        return new IllegalStateException("Doctor " + appointment.getDoctorId() + " is already booked between "
+                + appointment.getDateTime() + " and " + appointment.getEndDateTime().toLocalTime()
+                + "; appointment " + appointment.getAppointmentId() + " was not changed");
+    }
+
+    private DoctorCalendar calendar(String doctorId) {
+        return calendars.computeIfAbsent(doctorId, id -> new DoctorCalendar());
+    }
+
+    private NavigableSet<Appointment> doctorTimeline(String doctorId) {
+        return doctorIndex.computeIfAbsent(doctorId, id -> new ConcurrentSkipListSet<>(BY_TIME));
+    }
+
+    //Search key for the time indexes. The empty ID sorts before every real appointment at that time.
+    static Appointment timeProbe(LocalDateTime dateTime) {
+        return new Appointment("", "", "", dateTime);
+    }
+
     public boolean removeAppointment(String appointmentId) {
-        return appointmentMap.remove(appointmentId) != null;
+        Appointment removed = appointmentMap.remove(appointmentId);
+        if (removed == null) {
+            return false;
+        }
+        Reservation held = reservations.remove(appointmentId);
+        if (held != null) {
+            calendar(held.doctorId).release(held.start, held.durationMinutes);
+        }
+        unindex(removed);
+        return true;
+    }
+
+    private void index(Appointment appointment) {
+        doctorTimeline(appointment.getDoctorId()).add(appointment);
+        patientIndex.computeIfAbsent(appointment.getPatientId(), id -> new ConcurrentSkipListSet<>(BY_TIME))
+                .add(appointment);
+        timeIndex.add(appointment);
+    }
+
+    private void unindex(Appointment appointment) {
+        doctorTimeline(appointment.getDoctorId()).remove(appointment);
+        NavigableSet<Appointment> patientTimeline = patientIndex.get(appointment.getPatientId());
+        if (patientTimeline != null) {
+            patientTimeline.remove(appointment);
+        }
+        timeIndex.remove(appointment);
     }
 
     public boolean exists(String appointmentId) {
@@ -92,4 +432,84 @@ public class AppointmentRespository {
     public int count() {
         return appointmentMap.size();
     }
+
+    //The cursor is the time and ID of the last appointment handed out
+    private static String encodeCursor(Appointment last) {
+        return last.getDateTime() + "|" + last.getAppointmentId();
+    }
+
+    private static Appointment decodeCursor(String cursor) {
+        int separator = cursor.indexOf('|');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(cursor.substring(0, separator));
+            return new Appointment(cursor.substring(separator + 1), "", "", dateTime);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    //Calendar slots held by an appointment, or by a caller through tryHold/cancelAndHold
+    public static final class Reservation {
+        private final String doctorId;
+        private final LocalDateTime start;
+        private final int durationMinutes;
+
+        private Reservation(String doctorId, LocalDateTime start, int durationMinutes) {
+            this.doctorId = doctorId;
+            this.start = start;
+            this.durationMinutes = durationMinutes;
+        }
+
+        private Reservation(Appointment appointment) {
+            this(appointment.getDoctorId(), appointment.getDateTime(), appointment.getDurationMinutes());
+        }
+
+        public String getDoctorId() {
+            return doctorId;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        boolean sameSlots(Reservation other) {
+            return doctorId.equals(other.doctorId) && start.equals(other.start)
+                    && durationMinutes == other.durationMinutes;
+        }
+
+        @Override
+        public String toString() {
+            return doctorId + " " + start + " (" + durationMinutes + " min)";
+        }
+    }
+
+    //A page of a range scan. nextCursor is null on the last page.
+    public static class Page {
+        private final List<Appointment> items;
+        private final String nextCursor;
+
+        public Page(List<Appointment> items, String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Appointment> getItems() {
+            return items;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean hasMore() {
+            return nextCursor != null;
+        }
+    }
 }
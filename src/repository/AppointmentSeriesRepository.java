@@ -0,0 +1,68 @@
+package repository;
+
+import model.AppointmentSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class AppointmentSeriesRepository {
+    private Map<String, AppointmentSeries> seriesMap;
+    private Map<String, List<AppointmentSeries>> byDoctor; //doctorId -> that doctor's series
+    private Map<String, List<AppointmentSeries>> byPatient; //patientId -> that patient's series
+
+    public AppointmentSeriesRepository() {
+        this.seriesMap = new ConcurrentHashMap<>();
+        this.byDoctor = new ConcurrentHashMap<>();
+        this.byPatient = new ConcurrentHashMap<>();
+    }
+
+    public boolean addSeries(AppointmentSeries series) {
+        if (seriesMap.putIfAbsent(series.getSeriesId(), series) != null) {
+            return false;
+        }
+        byDoctor.computeIfAbsent(series.getDoctorId(), id -> new CopyOnWriteArrayList<>()).add(series);
+        byPatient.computeIfAbsent(series.getPatientId(), id -> new CopyOnWriteArrayList<>()).add(series);
+        return true;
+    }
+
+    public AppointmentSeries findById(String seriesId) {
+        return seriesMap.get(seriesId);
+    }
+
+    public List<AppointmentSeries> findAll() {
+        return new ArrayList<>(seriesMap.values());
+    }
+
+    //Active series of a doctor
+    public List<AppointmentSeries> findByDoctorId(String doctorId) {
+        return activeOnly(byDoctor.get(doctorId));
+    }
+
+    //Active series of a patient
+    public List<AppointmentSeries> findByPatientId(String patientId) {
+        return activeOnly(byPatient.get(patientId));
+    }
+
+    public boolean exists(String seriesId) {
+        return seriesMap.containsKey(seriesId);
+    }
+
+    public int count() {
+        return seriesMap.size();
+    }
+
+    private List<AppointmentSeries> activeOnly(List<AppointmentSeries> series) {
+        List<AppointmentSeries> result = new ArrayList<>();
+        if (series != null) {
+            for (AppointmentSeries s : series) {
+                if (s.isActive()) {
+                    result.add(s);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,249 @@
+package repository;
+
+import model.AppointmentSeries;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//One doctor's booked time as a bitmap per day, one bit per 5-minute slot (288 bits, 5 longs a day).
+//An overlap check is a handful of word-level AND operations instead of a scan over appointments.
+//Times are rounded outwards to whole slots, so two bookings that share any 5-minute slot count as overlapping.
+//Recurring series are kept as rules, not bits: their pending visits block time through
+//AppointmentSeries.findOverlapping, so a long series costs one list entry instead of a bitmap day per visit.
+//A visit only takes bits once it is materialized as an appointment.
+public class DoctorCalendar {
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+
+    private final Map<LocalDate, long[]> days = new HashMap<>();
+    private final List<AppointmentSeries> series = new ArrayList<>(); //series whose pending visits hold time
+
+    //True if no slot touched by [start, start + durationMinutes) is booked
+    public synchronized boolean isFree(LocalDateTime start, int durationMinutes) {
+        return forEachDay(start, durationMinutes, Operation.TEST) && seriesBlockedUntil(start, durationMinutes) == null;
+    }
+
+    //Book the range if it is completely free. Returns false, changing nothing, if any slot is taken.
+    public synchronized boolean tryReserve(LocalDateTime start, int durationMinutes) {
+        if (!isFree(start, durationMinutes)) {
+            return false;
+        }
+        forEachDay(start, durationMinutes, Operation.SET);
+        return true;
+    }
+
+    //Let the series' pending visits hold their time, if every one of them is free. Returns false, changing
+    //nothing, if any visit collides with a booking or another series. Checked visit by visit, but nothing is
+    //stored per visit.
+    public synchronized boolean tryAddSeries(AppointmentSeries added) {
+        for (int index = 0; index < added.getOccurrenceCount(); index++) {
+            if (added.isPending(index) && !isFree(added.getOccurrenceStart(index), added.getDurationMinutes())) {
+                return false;
+            }
+        }
+        series.add(added);
+        return true;
+    }
+
+    //The series no longer holds time. Visits already materialized keep their own slots.
+    public synchronized void removeSeries(AppointmentSeries removed) {
+        series.remove(removed);
+    }
+
+    //Book the slots of a series visit being materialized. Only the bitmap is checked, since the visit's own
+    //series still covers the range until it stops being pending. False if the slots are somehow taken.
+    public synchronized boolean tryReserveOccurrence(LocalDateTime start, int durationMinutes) {
+        if (!forEachDay(start, durationMinutes, Operation.TEST)) {
+            return false;
+        }
+        forEachDay(start, durationMinutes, Operation.SET);
+        return true;
+    }
+
+    public synchronized void release(LocalDateTime start, int durationMinutes) {
+        forEachDay(start, durationMinutes, Operation.CLEAR);
+    }
+
+    //Move a booking from one range to another in one step, so it may overlap its own old slots.
+    //Returns false, leaving the old booking in place, if the new range collides with anything else.
+    public synchronized boolean tryMove(LocalDateTime oldStart, int oldDurationMinutes,
+                                        LocalDateTime newStart, int newDurationMinutes) {
+        forEachDay(oldStart, oldDurationMinutes, Operation.CLEAR);
+        if (isFree(newStart, newDurationMinutes)) {
+            forEachDay(newStart, newDurationMinutes, Operation.SET);
+            return true;
+        }
+        forEachDay(oldStart, oldDurationMinutes, Operation.SET);
+        return false;
+    }
+
+    //Earliest slot-aligned start at or after 'from' where durationMinutes fit between dayStart and dayEnd,
+    //looking no further than lastDay. Null if there is none. Free runs are found with word-level bit scans;
+    //a run that collides with a series visit is retried from the end of that visit.
+    public synchronized LocalDateTime findNextFree(LocalDateTime from, int durationMinutes,
+                                                   LocalTime dayStart, LocalTime dayEnd, LocalDate lastDay) {
+        LocalDateTime candidate = from;
+        while (true) {
+            LocalDateTime start = findNextUnset(candidate, durationMinutes, dayStart, dayEnd, lastDay);
+            if (start == null) {
+                return null;
+            }
+            LocalDateTime blockedUntil = seriesBlockedUntil(start, durationMinutes);
+            if (blockedUntil == null) {
+                return start;
+            }
+            candidate = blockedUntil;
+        }
+    }
+
+    //End of a pending series visit that shares a slot with [start, start + durationMinutes), or null.
+    //The range is rounded outwards to whole slots first, matching the bitmap's idea of overlap.
+    private LocalDateTime seriesBlockedUntil(LocalDateTime start, int durationMinutes) {
+        if (series.isEmpty()) {
+            return null;
+        }
+        LocalDateTime day = start.toLocalDate().atStartOfDay();
+        int startMinute = start.getHour() * 60 + start.getMinute();
+        int firstSlot = startMinute / SLOT_MINUTES;
+        int endSlot = (startMinute + durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        LocalDateTime roundedStart = day.plusMinutes((long) firstSlot * SLOT_MINUTES);
+        int roundedMinutes = (endSlot - firstSlot) * SLOT_MINUTES;
+        for (AppointmentSeries rule : series) {
+            int index = rule.findOverlapping(roundedStart, roundedMinutes);
+            if (index >= 0) {
+                return rule.getOccurrenceStart(index).plusMinutes(rule.getDurationMinutes());
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime findNextUnset(LocalDateTime from, int durationMinutes,
+                                        LocalTime dayStart, LocalTime dayEnd, LocalDate lastDay) {
+        int needed = (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int openSlot = (dayStart.getHour() * 60 + dayStart.getMinute() + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int closeSlot = (dayEnd.getHour() * 60 + dayEnd.getMinute()) / SLOT_MINUTES;
+
+        LocalDate day = from.toLocalDate();
+        int fromMinute = from.getHour() * 60 + from.getMinute() + (from.getSecond() > 0 || from.getNano() > 0 ? 1 : 0);
+        int fromSlot = (fromMinute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+
+        while (!day.isAfter(lastDay)) {
+            int found = findFreeRun(days.get(day), Math.max(openSlot, fromSlot), closeSlot, needed);
+            if (found >= 0) {
+                return day.atStartOfDay().plusMinutes((long) found * SLOT_MINUTES);
+            }
+            day = day.plusDays(1);
+            fromSlot = 0;
+        }
+        return null;
+    }
+
+    //First position p in [from, to) with 'needed' clear bits starting at p, or -1
+    private static int findFreeRun(long[] bits, int from, int to, int needed) {
+        if (bits == null) {
+            return from + needed <= to ? from : -1;
+        }
+        int position = from;
+        while (position + needed <= to) {
+            int free = nextBit(bits, position, false);
+            if (free + needed > to) {
+                return -1;
+            }
+            int busy = nextBit(bits, free, true);
+            if (busy - free >= needed) {
+                return free;
+            }
+            position = busy;
+        }
+        return -1;
+    }
+
+    //Index of the first set (or clear) bit at or after 'from', or SLOTS_PER_DAY if there is none
+    private static int nextBit(long[] bits, int from, boolean set) {
+        int word = from >>> 6;
+        if (word >= bits.length) {
+            return SLOTS_PER_DAY;
+        }
+        long current = (set ? bits[word] : ~bits[word]) & (-1L << from);
+        while (current == 0) {
+            if (++word >= bits.length) {
+                return SLOTS_PER_DAY;
+            }
+            current = set ? bits[word] : ~bits[word];
+        }
+        return Math.min(SLOTS_PER_DAY, (word << 6) + Long.numberOfTrailingZeros(current));
+    }
+
+    private enum Operation { TEST, SET, CLEAR }
+
+    //Split the range at midnight and apply the operation to each day's bitmap.
+    //For TEST, returns false as soon as a booked slot is found.
+    private boolean forEachDay(LocalDateTime start, int durationMinutes, Operation operation) {
+        LocalDate day = start.toLocalDate();
+        int startMinute = start.getHour() * 60 + start.getMinute();
+        int from = startMinute / SLOT_MINUTES;
+        int remainingSlots = (startMinute + durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES - from;
+
+        while (remainingSlots > 0) {
+            int to = Math.min(SLOTS_PER_DAY, from + remainingSlots);
+            if (!apply(day, from, to, operation)) {
+                return false;
+            }
+            remainingSlots -= to - from;
+            day = day.plusDays(1);
+            from = 0;
+        }
+        return true;
+    }
+
+    //Slots [from, to) of one day
+    private boolean apply(LocalDate day, int from, int to, Operation operation) {
+        long[] bits = days.get(day);
+        if (bits == null) {
+            if (operation != Operation.SET) {
+                return true;
+            }
+            bits = new long[WORDS_PER_DAY];
+            days.put(day, bits);
+        }
+
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            int lo = Math.max(from, word << 6) - (word << 6);
+            int hi = Math.min(to, (word + 1) << 6) - (word << 6);
+            long mask = (hi == 64 ? -1L : (1L << hi) - 1) & (-1L << lo);
+            switch (operation) {
+                case TEST:
+                    if ((bits[word] & mask) != 0) {
+                        return false;
+                    }
+                    break;
+                case SET:
+                    bits[word] |= mask;
+                    break;
+                case CLEAR:
+                    bits[word] &= ~mask;
+                    break;
+            }
+        }
+
+        if (operation == Operation.CLEAR && isEmpty(bits)) {
+            days.remove(day);
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package repository;
+
+import model.DrugInteraction;
+import model.Vocabulary;
+import util.StringDictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Known drug-drug interactions, loaded from a local CSV of drugA,drugB,severity,description.
+//Drugs are identified by their case-insensitive group in Vocabulary.DRUG, the same ints prescriptions carry,
+//and each unordered pair is stored under one packed long. Checking a prescription's drug against another's
+//is a single hash probe with no string work.
+public class DrugInteractionRepository {
+    private Map<Long, DrugInteraction> byPair; //packed (smaller group, larger group) -> interaction
+
+    public DrugInteractionRepository() {
+        this.byPair = new HashMap<>();
+    }
+
+    //Load interactions from a CSV file. Returns how many were added.
+    public int loadFrom(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return loadFrom(reader);
+        }
+    }
+
+    //Blank lines and lines starting with # are skipped; the description may itself contain commas
+    public int loadFrom(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        int loaded = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split(",", 4);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Malformed interaction on line " + lineNumber + ": " + line);
+            }
+            DrugInteraction.Severity severity;
+            try {
+                severity = DrugInteraction.Severity.fromString(parts[2]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+            }
+            String description = parts.length == 4 ? parts[3].trim() : "";
+            if (addInteraction(new DrugInteraction(parts[0].trim(), parts[1].trim(), severity, description))) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    //Returns false if the pair is already known; the first entry for a pair wins
+    public boolean addInteraction(DrugInteraction interaction) {
+        String drugA = interaction.getDrugA() == null ? "" : interaction.getDrugA().trim();
+        String drugB = interaction.getDrugB() == null ? "" : interaction.getDrugB().trim();
+        if (drugA.isEmpty() || drugB.isEmpty()) {
+            throw new IllegalArgumentException("An interaction needs two different drugs: " + interaction);
+        }
+        int a = Vocabulary.DRUG.groupOf(Vocabulary.DRUG.encode(drugA));
+        int b = Vocabulary.DRUG.groupOf(Vocabulary.DRUG.encode(drugB));
+        if (a == b) {
+            throw new IllegalArgumentException("An interaction needs two different drugs: " + interaction);
+        }
+        return byPair.putIfAbsent(pairKey(a, b), interaction) == null;
+    }
+
+    //The interaction between two drugs in either order, or null if none is known
+    public DrugInteraction findInteraction(String drugA, String drugB) {
+        return findInteraction(Vocabulary.DRUG.findGroup(drugA), Vocabulary.DRUG.findGroup(drugB));
+    }
+
+    //Same, by drug group, e.g. Vocabulary.DRUG.groupOf(prescription.getDrugCode())
+    public DrugInteraction findInteraction(int drugGroupA, int drugGroupB) {
+        if (drugGroupA == StringDictionary.NONE || drugGroupB == StringDictionary.NONE || drugGroupA == drugGroupB) {
+            return null;
+        }
+        return byPair.get(pairKey(drugGroupA, drugGroupB));
+    }
+
+    public List<DrugInteraction> findAll() {
+        return new ArrayList<>(byPair.values());
+    }
+
+    public int count() {
+        return byPair.size();
+    }
+
+    private static long pairKey(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
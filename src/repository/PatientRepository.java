@@ -1,25 +1,44 @@
 package repository;
 
+import model.Gender;
 import model.Patient;
+import util.NameMatching;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class PatientRepository {
+    private static final int AGE_BAND_YEARS = 5;
+    private static final int AGE_TOLERANCE = 2; //recorded ages this far apart can still be the same person
+
     private Map<String, Patient> patientMap;
+    //"phonetic code|gender|age band" -> patients. Each patient is filed under two codes built from its first and
+    //last name, so a duplicate check only compares against people who sound alike, have the same gender and
+    //similar age.
+    private Map<String, Set<Patient>> matchBlocks;
+    //patientId -> the block keys the patient is filed under. Name, age and gender can change in place, so the
+    //keys a patient was filed under can't be recomputed from the patient later.
+    private Map<String, List<String>> filedKeys;
 
     public PatientRepository() {
-        this.patientMap = new HashMap<>();
+        this.patientMap = new ConcurrentHashMap<>();
+        this.matchBlocks = new ConcurrentHashMap<>();
+        this.filedKeys = new ConcurrentHashMap<>();
     }
 
     //Register a new patient
     public boolean addPatient(Patient patient){
-        if(patientMap.containsKey(patient.getPatientId())){
+        if (patientMap.putIfAbsent(patient.getPatientId(), patient) != null) {
             return false;
         }
-        patientMap.put(patient.getPatientId(), patient);
+        indexForMatching(patient);
         return true;
     }
 
@@ -56,18 +75,77 @@ public class PatientRepository {
         return result;
     }
 
-    //update patient information
+    //Patients filed in the same blocks as the given name, age and gender whose age is within AGE_TOLERANCE.
+    //These are the only records a duplicate check needs to score; the result is typically a handful even
+    //with millions of patients.
+    public List<Patient> findMatchCandidates(String name, int age, Gender gender) {
+        Set<Patient> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Patient> result = new ArrayList<>();
+        int lowBand = Math.max(0, age - AGE_TOLERANCE) / AGE_BAND_YEARS;
+        int highBand = (age + AGE_TOLERANCE) / AGE_BAND_YEARS;
+        for (String code : phoneticCodes(name)) {
+            for (int band = lowBand; band <= highBand; band++) {
+                Set<Patient> block = matchBlocks.get(blockKey(code, gender, band));
+                if (block == null) {
+                    continue;
+                }
+                for (Patient patient : block) {
+                    if (Math.abs(patient.getAge() - age) <= AGE_TOLERANCE && candidates.add(patient)) {
+                        result.add(patient);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    //update patient information. Last writer wins, but the version still moves so versioned writers notice.
     public boolean updatePatient(Patient patient) {
-        if(!patientMap.containsKey(patient.getPatientId())) {
-            return false;
+        return patientMap.computeIfPresent(patient.getPatientId(), (id, current) -> {
+            patient.setVersion(current.getVersion() + 1);
+            refileForMatching(current, patient);
+            return patient;
+        }) != null;
+    }
+
+    //Compare-and-set update. The change is applied only if nobody updated the patient since expectedVersion
+    //was read; otherwise a VersionConflictException is thrown. Only writers of the same patient contend.
+    public boolean updatePatient(String patientId, long expectedVersion, Consumer<Patient> change) {
+        return patientMap.computeIfPresent(patientId, (id, current) -> {
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            change.accept(current);
+            current.setVersion(expectedVersion + 1);
+            refileForMatching(current, current);
+            return current;
+        }) != null;
+    }
+
+    //Versioned update that re-reads and retries on a conflict instead of throwing. For changes that don't depend
+    //on what the caller saw, like appending a new record ID, so concurrent writers never clobber each other.
+    public boolean updatePatient(String patientId, Consumer<Patient> change) {
+        while (true) {
+            Patient current = patientMap.get(patientId);
+            if (current == null) {
+                return false;
+            }
+            try {
+                return updatePatient(patientId, current.getVersion(), change);
+            } catch (VersionConflictException e) {
+                // someone else wrote first; apply ours on top of theirs
+            }
         }
-        patientMap.put(patient.getPatientId(), patient);
-        return true;
     }
 
     //remove patient
     public boolean removePatient(String patientId) {
-        return patientMap.remove(patientId) != null;
+        Patient removed = patientMap.remove(patientId);
+        if (removed == null) {
+            return false;
+        }
+        unindexForMatching(removed);
+        return true;
     }
 
     //if patient exists
@@ -80,4 +158,76 @@ public class PatientRepository {
         return patientMap.size();
     }
 
+    private void indexForMatching(Patient patient) {
+        List<String> keys = blockKeys(patient);
+        for (String key : keys) {
+            matchBlocks.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(patient);
+        }
+        filedKeys.put(patient.getPatientId(), keys);
+    }
+
+    private void unindexForMatching(Patient patient) {
+        List<String> keys = filedKeys.remove(patient.getPatientId());
+        if (keys != null) {
+            removeFromBlocks(patient, keys);
+        }
+    }
+
+    //Moves an updated patient to the blocks for its current name, age and gender, whether the update replaced
+    //the stored instance or changed it in place. It goes into the new blocks before leaving the old ones, so
+    //a concurrent duplicate check always finds it somewhere.
+    private void refileForMatching(Patient filed, Patient patient) {
+        List<String> previous = filedKeys.get(filed.getPatientId());
+        List<String> keys = blockKeys(patient);
+        if (filed == patient && keys.equals(previous)) {
+            return;
+        }
+        indexForMatching(patient);
+        if (previous != null) {
+            List<String> stale = new ArrayList<>(previous);
+            if (filed == patient) {
+                stale.removeAll(keys);
+            }
+            removeFromBlocks(filed, stale);
+        }
+    }
+
+    private void removeFromBlocks(Patient patient, List<String> keys) {
+        //Empty blocks are kept so a concurrent add can never land in a block that is being dropped
+        for (String key : keys) {
+            Set<Patient> block = matchBlocks.get(key);
+            if (block != null) {
+                block.remove(patient);
+            }
+        }
+    }
+
+    private static List<String> blockKeys(Patient patient) {
+        List<String> keys = new ArrayList<>();
+        int band = patient.getAge() / AGE_BAND_YEARS;
+        for (String code : phoneticCodes(patient.getName())) {
+            keys.add(blockKey(code, patient.getGender(), band));
+        }
+        return keys;
+    }
+
+    //Soundex of the last name with the first initial, and soundex of the first name with the last initial.
+    //A slip in either name still leaves one key intact, and names entered last-first produce the same pair.
+    private static Set<String> phoneticCodes(String name) {
+        Set<String> codes = new LinkedHashSet<>();
+        List<String> tokens = NameMatching.nameTokens(name);
+        if (tokens.size() == 1) {
+            codes.add(NameMatching.soundex(tokens.get(0)));
+        } else if (tokens.size() > 1) {
+            String first = tokens.get(0);
+            String last = tokens.get(tokens.size() - 1);
+            codes.add(NameMatching.soundex(last) + first.charAt(0));
+            codes.add(NameMatching.soundex(first) + last.charAt(0));
+        }
+        return codes;
+    }
+
+    private static String blockKey(String code, Gender gender, int band) {
+        return code + "|" + gender + "|" + band;
+    }
 }
@@ -1,15 +1,28 @@
 package repository;
 
 import model.Prescription;
+import model.Vocabulary;
+import util.IntervalTree;
 
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class PrescriptionRepository {
     private Map<String, Prescription> prescriptionMap;
+    private Map<String, List<Prescription>> byPatient; //patientId -> prescriptions
+    private Map<String, List<Prescription>> byDoctor; //prescribing doctorId -> prescriptions
+    private Map<Integer, List<Prescription>> byDrug; //drug group in Vocabulary.DRUG -> prescriptions
+    private Map<String, IntervalTree<Prescription>> courseByPatient; //patientId -> courses keyed by epoch day
+    private Map<Integer, IntervalTree<Prescription>> courseByDrug; //drug group -> courses keyed by epoch day
 
     public PrescriptionRepository() {
         this.prescriptionMap = new HashMap<>();
+        this.byPatient = new HashMap<>();
+        this.byDoctor = new HashMap<>();
+        this.byDrug = new HashMap<>();
+        this.courseByPatient = new HashMap<>();
+        this.courseByDrug = new HashMap<>();
     }
 
     public boolean addPrescription(Prescription prescription) {
@@ -17,6 +30,14 @@ public class PrescriptionRepository {
             return false;
         }
         prescriptionMap.put(prescription.getPrescriptionId(), prescription);
+        byPatient.computeIfAbsent(prescription.getPatientId(), id -> new ArrayList<>()).add(prescription);
+        byDoctor.computeIfAbsent(prescription.getPrescribingDoctorId(), id -> new ArrayList<>()).add(prescription);
+        int drugGroup = Vocabulary.DRUG.groupOf(prescription.getDrugCode());
+        byDrug.computeIfAbsent(drugGroup, key -> new ArrayList<>()).add(prescription);
+        courseByPatient.computeIfAbsent(prescription.getPatientId(), id -> new IntervalTree<>())
+                .insert(courseStart(prescription), courseEnd(prescription), prescription);
+        courseByDrug.computeIfAbsent(drugGroup, key -> new IntervalTree<>())
+                .insert(courseStart(prescription), courseEnd(prescription), prescription);
         return true;
     }
 
@@ -30,23 +51,43 @@ public class PrescriptionRepository {
 
     //Find all prescriptions for a patient
     public List<Prescription> findByPatientId(String patientId) {
-        return prescriptionMap.values().stream()
-                .filter(rx -> rx.getPatientId().equals(patientId))
+        return byPatient.getOrDefault(patientId, Collections.emptyList()).stream()
                 .sorted(Comparator.comparing(Prescription::getPrescribedDate).reversed())
                 .collect(Collectors.toList());
     }
 
     //Find prescription by prescribing doctor
     public List<Prescription> findByDoctorId(String doctorId){
-        return prescriptionMap.values().stream()
-                .filter(rx -> rx.getPrescribingDoctorId().equals(doctorId))
-                .collect(Collectors.toList());
+        return new ArrayList<>(byDoctor.getOrDefault(doctorId, Collections.emptyList()));
     }
 
+    //Case-insensitive
     public List<Prescription> findByDrugName(String drugName) {
-        return prescriptionMap.values().stream()
-                .filter(rx -> rx.getDrugName().equalsIgnoreCase(drugName))
-                .collect(Collectors.toList());
+        return new ArrayList<>(byDrug.getOrDefault(drugGroup(drugName), Collections.emptyList()));
+    }
+
+    //Prescriptions the patient is taking on the given day
+    public List<Prescription> findActiveOn(String patientId, LocalDate day) {
+        IntervalTree<Prescription> courses = courseByPatient.get(patientId);
+        return courses == null ? new ArrayList<>() : courses.stab(day.toEpochDay());
+    }
+
+    //Prescriptions the patient takes at any point from 'from' up to but excluding 'to'
+    public List<Prescription> findActiveBetween(String patientId, LocalDate from, LocalDate to) {
+        IntervalTree<Prescription> courses = courseByPatient.get(patientId);
+        return courses == null ? new ArrayList<>() : courses.overlapping(from.toEpochDay(), to.toEpochDay());
+    }
+
+    //Case-insensitive. Every course of the drug that was running on the given day.
+    public List<Prescription> findDrugActiveOn(String drugName, LocalDate day) {
+        IntervalTree<Prescription> courses = courseByDrug.get(drugGroup(drugName));
+        return courses == null ? new ArrayList<>() : courses.stab(day.toEpochDay());
+    }
+
+    //Case-insensitive. Every course of the drug running at any point from 'from' up to but excluding 'to'.
+    public List<Prescription> findDrugActiveBetween(String drugName, LocalDate from, LocalDate to) {
+        IntervalTree<Prescription> courses = courseByDrug.get(drugGroup(drugName));
+        return courses == null ? new ArrayList<>() : courses.overlapping(from.toEpochDay(), to.toEpochDay());
     }
 
     public boolean exists(String prescriptionId) {
@@ -57,4 +98,18 @@ public class PrescriptionRepository {
         return prescriptionMap.size();
     }
 
+    //A course runs from the prescribed date for durationDays days, so its last day is start + duration - 1
+    private static long courseStart(Prescription prescription) {
+        return prescription.getPrescribedDate().toEpochDay();
+    }
+
+    private static long courseEnd(Prescription prescription) {
+        return courseStart(prescription) + Math.max(prescription.getDurationDays(), 1);
+    }
+
+    //Drug names that differ only in case share a group; NONE for a drug never prescribed
+    private static int drugGroup(String drugName) {
+        return Vocabulary.DRUG.findGroup(drugName);
+    }
+
 }
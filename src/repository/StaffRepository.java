@@ -1,26 +1,26 @@
 package repository;
 
+import model.Doctor;
 import model.Staff;
+import model.Vocabulary;
+import util.StringDictionary;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class StaffRepository {
     private Map<String, Staff> staffMap; //This is in memory storage. Doctor, Nurse, AdminStaff can all be in thi map.
 
     public StaffRepository() {
-        this.staffMap = new HashMap<>();
+        this.staffMap = new ConcurrentHashMap<>();
     }
 
     //Adding a new staff. True if added, false if ID exists.
     public boolean addStaff(Staff staff) {
-        if(staffMap.containsKey(staff.getStaffId())){
-            return false;
-        }
-        staffMap.put(staff.getStaffId(), staff);
-        return true;
+        return staffMap.putIfAbsent(staff.getStaffId(), staff) == null;
     }
 
     //Find staff by ID. Returns Staff object or null if not found.
@@ -33,36 +33,80 @@ public class StaffRepository {
         return new ArrayList<>(staffMap.values());
     }
 
-    //Find staff by role
+    //Find staff by role. Case-insensitive; compares dictionary groups, not strings.
     public List<Staff> findByRole(String role) {
         List<Staff> result = new ArrayList<>();
-
+        int group = Vocabulary.ROLE.findGroup(role);
+        if (group == StringDictionary.NONE) {
+            return result;
+        }
         for(Staff staff : staffMap.values()) {
-            if(staff.getRole().equalsIgnoreCase(role)) {
+            if(Vocabulary.ROLE.groupOf(staff.getRoleCode()) == group) {
                 result.add(staff);
             }
         }
         return result;
     }
 
-    //Find staff by department
+    //Find staff by department. Case-insensitive.
     public List<Staff> findByDepartment(String department) {
         List<Staff> result = new ArrayList<>();
+        int group = Vocabulary.DEPARTMENT.findGroup(department);
+        if (group == StringDictionary.NONE) {
+            return result;
+        }
         for (Staff staff : staffMap.values()) {
-            if (staff.getDepartment().equalsIgnoreCase(department)) {
+            if (Vocabulary.DEPARTMENT.groupOf(staff.getDepartmentCode()) == group) {
                 result.add(staff);
             }
         }
         return result;
     }
 
-    //Update staff information
-    public boolean updateStaff(Staff staff) {
-        if(!staffMap.containsKey(staff.getStaffId())) {
-            return false;
+    //Find doctors by specialization. Case-insensitive.
+    public List<Staff> findBySpecialization(String specialization) {
+        List<Staff> result = new ArrayList<>();
+        int group = Vocabulary.SPECIALIZATION.findGroup(specialization);
+        if (group == StringDictionary.NONE) {
+            return result;
+        }
+        for (Staff staff : staffMap.values()) {
+            if (staff instanceof Doctor
+                    && Vocabulary.SPECIALIZATION.groupOf(((Doctor) staff).getSpecializationCode()) == group) {
+                result.add(staff);
+            }
         }
-        staffMap.put(staff.getStaffId(), staff);
-        return true;
+        return result;
+    }
+
+    //Update staff information. Last writer wins, but the version still moves so versioned writers notice.
+    public boolean updateStaff(Staff staff) {
+        return staffMap.computeIfPresent(staff.getStaffId(), (id, current) -> {
+            staff.setVersion(current.getVersion() + 1);
+            return staff;
+        }) != null;
+    }
+
+    //Compare-and-set update. Throws VersionConflictException if the staff record moved past expectedVersion.
+    public boolean updateStaff(String staffId, long expectedVersion, Consumer<Staff> change) {
+        return staffMap.computeIfPresent(staffId, (id, current) -> {
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            change.accept(current);
+            current.setVersion(expectedVersion + 1);
+            return current;
+        }) != null;
+    }
+
+    //Atomic update with no version check, for changes that commute with any other write, like adding a patient
+    //to a doctor's panel. The version still moves so versioned writers notice.
+    public boolean updateStaff(String staffId, Consumer<Staff> change) {
+        return staffMap.computeIfPresent(staffId, (id, current) -> {
+            change.accept(current);
+            current.setVersion(current.getVersion() + 1);
+            return current;
+        }) != null;
     }
 
     //Remove staff by ID
@@ -7,9 +7,13 @@ import java.util.stream.Collectors;
 
 public class TreatmentRepository {
     private Map<String, TreatmentRecord> treatmentMap;
+    private Map<String, List<TreatmentRecord>> byPatient; //patientId -> treatments
+    private Map<String, List<TreatmentRecord>> byDoctor; //attending doctorId -> treatments
 
     public TreatmentRepository() {
         this.treatmentMap = new HashMap<>();
+        this.byPatient = new HashMap<>();
+        this.byDoctor = new HashMap<>();
     }
 
     public boolean addTreatment(TreatmentRecord treatment) {
@@ -17,6 +21,8 @@ public class TreatmentRepository {
             return false;
         }
         treatmentMap.put(treatment.getTreatmentId(), treatment);
+        byPatient.computeIfAbsent(treatment.getPatientId(), id -> new ArrayList<>()).add(treatment);
+        byDoctor.computeIfAbsent(treatment.getAttendingDoctorId(), id -> new ArrayList<>()).add(treatment);
         return true;
     }
 
@@ -30,17 +36,14 @@ public class TreatmentRepository {
 
     //find by patientId
     public List<TreatmentRecord> findByPatientId(String patientId) {
-        return treatmentMap.values().stream()
-                .filter(t -> t.getPatientId().equals(patientId))
+        return byPatient.getOrDefault(patientId, Collections.emptyList()).stream()
                 .sorted(Comparator.comparing(TreatmentRecord::getDate).reversed())
                 .collect(Collectors.toList());
     }
 
     //find the attending doctor
     public List<TreatmentRecord> findByDoctorId(String doctorId) {
-        return treatmentMap.values().stream()
-                .filter(t -> t.getAttendingDoctorId().equals(doctorId))
-                .collect(Collectors.toList());
+        return new ArrayList<>(byDoctor.getOrDefault(doctorId, Collections.emptyList()));
     }
 
     public boolean exists(String treatmentId) {
@@ -0,0 +1,30 @@
+package repository;
+
+//Thrown when a compare-and-set update finds that the record was changed since the caller read it
+public class VersionConflictException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String recordId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public VersionConflictException(String recordId, long expectedVersion, long actualVersion) {
+        super("Record " + recordId + " was modified by someone else (expected version "
+                + expectedVersion + ", found " + actualVersion + "). Reload and try again.");
+        this.recordId = recordId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
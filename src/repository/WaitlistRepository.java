@@ -0,0 +1,101 @@
+package repository;
+
+import model.WaitlistEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WaitlistRepository {
+    //Most urgent first, then first come first served
+    public static final Comparator<WaitlistEntry> BY_PRIORITY =
+            Comparator.comparing(WaitlistEntry::getPriority).thenComparingLong(WaitlistEntry::getSequence);
+
+    private Map<String, WaitlistEntry> entries; //entryId -> entry
+    private Map<String, NavigableSet<WaitlistEntry>> byDoctor; //doctorId -> queue for that doctor
+    private Map<String, NavigableSet<WaitlistEntry>> byDepartment; //lower-cased department -> queue for any doctor there
+    private final AtomicLong sequence = new AtomicLong();
+
+    public WaitlistRepository() {
+        this.entries = new ConcurrentHashMap<>();
+        this.byDoctor = new ConcurrentHashMap<>();
+        this.byDepartment = new ConcurrentHashMap<>();
+    }
+
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    //An entry waits either for one doctor or for a department, never both
+    public boolean addEntry(WaitlistEntry entry) {
+        if (entries.putIfAbsent(entry.getEntryId(), entry) != null) {
+            return false;
+        }
+        queueFor(entry).add(entry);
+        return true;
+    }
+
+    public WaitlistEntry findById(String entryId) {
+        return entries.get(entryId);
+    }
+
+    //Take an entry off the waitlist. Only one caller can win, so this doubles as claiming the entry.
+    public boolean removeEntry(WaitlistEntry entry) {
+        if (!entries.remove(entry.getEntryId(), entry)) {
+            return false;
+        }
+        queueFor(entry).remove(entry);
+        return true;
+    }
+
+    //Waiting entries in priority order, looking at no more than limit of them
+    public List<WaitlistEntry> peekByDoctor(String doctorId, int limit) {
+        return peek(byDoctor.get(doctorId), limit);
+    }
+
+    public List<WaitlistEntry> peekByDepartment(String department, int limit) {
+        return peek(byDepartment.get(normalize(department)), limit);
+    }
+
+    public List<WaitlistEntry> findAll() {
+        List<WaitlistEntry> result = new ArrayList<>(entries.values());
+        result.sort(BY_PRIORITY);
+        return result;
+    }
+
+    public int count() {
+        return entries.size();
+    }
+
+    private NavigableSet<WaitlistEntry> queueFor(WaitlistEntry entry) {
+        if (entry.getDoctorId() != null) {
+            return byDoctor.computeIfAbsent(entry.getDoctorId(), id -> new ConcurrentSkipListSet<>(BY_PRIORITY));
+        }
+        return byDepartment.computeIfAbsent(normalize(entry.getDepartment()),
+                key -> new ConcurrentSkipListSet<>(BY_PRIORITY));
+    }
+
+    private static List<WaitlistEntry> peek(NavigableSet<WaitlistEntry> queue, int limit) {
+        List<WaitlistEntry> result = new ArrayList<>();
+        if (queue == null) {
+            return result;
+        }
+        for (WaitlistEntry entry : queue) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static String normalize(String department) {
+        return department.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,398 @@
+package search;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.TreatmentRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over treatment diagnoses and notes and patient medical history entries, fed by
+// TREATMENT_RECORDED and MEDICAL_HISTORY_ADDED events. Each treatment or history entry is one document;
+// the index holds only term postings and a few ints per document, never the text itself.
+// Queries are ranked with BM25 and walk the query terms' posting lists together, one document at a time,
+// skipping whole posting blocks and documents that can't reach the top hits (block-max MaxScore), so a
+// common term costs little more than the blocks it takes to fill the top hits.
+public class ClinicalTextIndex implements DomainEventListener {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int DIAGNOSIS_WEIGHT = 2; // a term in the diagnosis counts as much as two in the notes
+    private static final double SCORE_SLACK = 1e-9; // relative, for bounds summed out of query term order
+
+    public enum DocumentKind {
+        TREATMENT,
+        MEDICAL_HISTORY
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings; // term -> documents containing it
+    private DocumentKind[] kinds = new DocumentKind[1024];
+    private String[] sourceIds = new String[1024]; // treatmentId, or patientId for a history entry
+    private String[] patientIds = new String[1024];
+    private int[] entryIndexes = new int[1024]; // position in the patient's history, -1 for treatments
+    private int[] lengths = new int[1024]; // weighted term count of each document
+    private int documentCount;
+    private long totalLength;
+
+    public ClinicalTextIndex() {
+        this.postings = new HashMap<>();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.TREATMENT_RECORDED) {
+            indexTreatment(event.getTreatment());
+        } else if (event.getType() == DomainEvent.Type.MEDICAL_HISTORY_ADDED) {
+            indexHistoryEntry(event.getPatient().getPatientId(), event.getEntryIndex(), event.getDetail());
+        }
+    }
+
+    public void indexTreatment(TreatmentRecord treatment) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.tokenize(treatment.getDiagnosis())) {
+            frequencies.merge(term, DIAGNOSIS_WEIGHT, Integer::sum);
+        }
+        for (String term : Tokenizer.tokenize(treatment.getTreatmentNotes())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            addDocument(DocumentKind.TREATMENT, treatment.getTreatmentId(), treatment.getPatientId(), -1,
+                    frequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // entryIndex is the entry's position in the patient's history as read when it was appended. Events for one
+    // patient can arrive out of order when two entries are added at once, so counting arrivals is not enough.
+    public void indexHistoryEntry(String patientId, int entryIndex, String entry) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.tokenize(entry)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            addDocument(DocumentKind.MEDICAL_HISTORY, patientId, patientId, entryIndex, frequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best matches first. A document matches if it contains any query term; more terms, rarer terms and
+    // more occurrences in a shorter document all score higher.
+    public List<SearchHit> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList.Cursor[] cursors = new PostingList.Cursor[terms.size()];
+            double[] idfs = new double[terms.size()];
+            int count = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                PostingList.Cursor cursor = list.cursor();
+                cursor.next();
+                int df = list.getDocumentCount();
+                idfs[count] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                cursors[count++] = cursor;
+            }
+            if (count == 0) {
+                return new ArrayList<>();
+            }
+
+            double averageLength = (double) totalLength / documentCount;
+            PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, SearchHit.BY_SCORE);
+            collectTopHits(Arrays.copyOf(cursors, count), Arrays.copyOf(idfs, count), averageLength, limit, best);
+
+            List<SearchHit> hits = new ArrayList<>(best);
+            hits.sort(Collections.reverseOrder(SearchHit.BY_SCORE));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Block-max MaxScore. The document ids are walked in windows that end where the first of the lists' current
+    // blocks ends, so inside a window each list has one block and its best possible score there is known.
+    // A window whose bounds together can't beat the weakest hit kept so far is skipped without decoding it.
+    // Inside a window, the lists with the smallest bounds that together can't beat it either are non-essential:
+    // only documents from the other lists are candidates, and the non-essential lists are probed for them,
+    // best first, only while the candidate can still make it. Results are exactly those of scoring every
+    // document, so the cost follows 'limit' and the rarer terms rather than the longest posting list.
+    private void collectTopHits(PostingList.Cursor[] cursors, double[] idfs, double averageLength, int limit,
+                                PriorityQueue<SearchHit> best) {
+        int count = cursors.length;
+        double[] bounds = new double[count];
+        double[] contributions = new double[count];
+        int[] order = new int[count]; // list indexes by ascending bound
+        int windowStart = Integer.MAX_VALUE;
+        for (PostingList.Cursor cursor : cursors) {
+            windowStart = Math.min(windowStart, cursor.docId());
+        }
+
+        while (windowStart != Integer.MAX_VALUE) {
+            int windowEnd = Integer.MAX_VALUE;
+            for (PostingList.Cursor cursor : cursors) {
+                windowEnd = Math.min(windowEnd, cursor.blockLastDocId());
+            }
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                PostingList.Cursor cursor = cursors[i];
+                bounds[i] = cursor.docId() <= windowEnd ? blockBound(idfs[i], cursor.blockImpacts(), averageLength) : 0;
+                total += bounds[i];
+            }
+            if (canEnter(total, best, limit)) {
+                scoreWindow(cursors, idfs, bounds, contributions, order, windowEnd, averageLength, limit, best);
+            }
+            if (windowEnd == Integer.MAX_VALUE) {
+                break;
+            }
+            windowStart = Integer.MAX_VALUE;
+            for (PostingList.Cursor cursor : cursors) {
+                cursor.advance(windowEnd + 1);
+                windowStart = Math.min(windowStart, cursor.docId());
+            }
+        }
+    }
+
+    private void scoreWindow(PostingList.Cursor[] cursors, double[] idfs, double[] bounds, double[] contributions,
+                             int[] order, int windowEnd, double averageLength, int limit,
+                             PriorityQueue<SearchHit> best) {
+        int count = cursors.length;
+        for (int i = 0; i < count; i++) {
+            int j = i;
+            while (j > 0 && bounds[order[j - 1]] > bounds[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        int essential = firstEssential(order, bounds, limit, best);
+
+        while (true) {
+            int docId = Integer.MAX_VALUE;
+            for (int k = essential; k < count; k++) {
+                docId = Math.min(docId, cursors[order[k]].docId());
+            }
+            if (docId > windowEnd) {
+                return;
+            }
+            Arrays.fill(contributions, 0);
+            double partial = 0;
+            for (int k = essential; k < count; k++) {
+                PostingList.Cursor cursor = cursors[order[k]];
+                if (cursor.docId() == docId) {
+                    contributions[order[k]] = termScore(idfs[order[k]], cursor.frequency(), lengths[docId],
+                            averageLength);
+                    partial += contributions[order[k]];
+                    cursor.next();
+                }
+            }
+            double remaining = 0;
+            for (int k = 0; k < essential; k++) {
+                remaining += bounds[order[k]];
+            }
+            boolean viable = true;
+            for (int k = essential - 1; k >= 0; k--) {
+                if (!canEnter((partial + remaining) * (1 + SCORE_SLACK), best, limit)) {
+                    viable = false;
+                    break;
+                }
+                PostingList.Cursor cursor = cursors[order[k]];
+                if (cursor.advance(docId) && cursor.docId() == docId) {
+                    contributions[order[k]] = termScore(idfs[order[k]], cursor.frequency(), lengths[docId],
+                            averageLength);
+                    partial += contributions[order[k]];
+                }
+                remaining -= bounds[order[k]];
+            }
+            if (!viable) {
+                continue;
+            }
+            // Summed in query term order, so the score doesn't depend on the order the lists were visited in
+            double score = 0;
+            for (double contribution : contributions) {
+                score += contribution;
+            }
+            if (best.size() < limit || score > best.peek().score) {
+                best.offer(hit(docId, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+                essential = firstEssential(order, bounds, limit, best);
+            }
+        }
+    }
+
+    // Position in 'order' of the first essential list: the lists before it can't put a document in the top hits
+    // on their own
+    private static int firstEssential(int[] order, double[] bounds, int limit, PriorityQueue<SearchHit> best) {
+        double sum = 0;
+        int essential = 0;
+        while (essential < order.length) {
+            sum += bounds[order[essential]];
+            if (canEnter(sum * (1 + SCORE_SLACK), best, limit)) {
+                break;
+            }
+            essential++;
+        }
+        return essential;
+    }
+
+    // Whether a document scoring up to 'bound' could still enter the top hits. A document has to beat the
+    // weakest hit outright to displace it, so a bound that only ties it is enough to skip. A bound summed in
+    // query term order, like a document's score, is exact; callers summing in another order add SCORE_SLACK
+    // first to absorb the rounding.
+    private static boolean canEnter(double bound, PriorityQueue<SearchHit> best, int limit) {
+        return best.size() < limit || bound > best.peek().score;
+    }
+
+    // Highest score any posting in the block can give: the best of its impacts
+    private static double blockBound(double idf, int[] impacts, double averageLength) {
+        double bound = 0;
+        for (int i = 0; i < impacts.length; i += 2) {
+            bound = Math.max(bound, termScore(idf, impacts[i], impacts[i + 1], averageLength));
+        }
+        return bound;
+    }
+
+    // BM25 contribution of one term. Rises with the frequency and falls with the length, so a block's impacts
+    // bound every posting in it.
+    private static double termScore(double idf, int frequency, int length, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getPostingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                bytes += list.getSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addDocument(DocumentKind kind, String sourceId, String patientId, int entryIndex,
+                             Map<String, Integer> frequencies) {
+        if (documentCount == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            sourceIds = Arrays.copyOf(sourceIds, capacity);
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            entryIndexes = Arrays.copyOf(entryIndexes, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int docId = documentCount++;
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(docId, entry.getValue(), length);
+        }
+        kinds[docId] = kind;
+        sourceIds[docId] = sourceId;
+        patientIds[docId] = patientId;
+        entryIndexes[docId] = entryIndex;
+        lengths[docId] = length;
+        totalLength += length;
+    }
+
+    private SearchHit hit(int docId, double score) {
+        return new SearchHit(docId, kinds[docId], sourceIds[docId], patientIds[docId], entryIndexes[docId], score);
+    }
+
+    // One ranked match. The caller resolves the source record to show its text.
+    public static class SearchHit {
+        // Lower scores first, and the later document first on a tie so earlier documents win a tie overall
+        private static final Comparator<SearchHit> BY_SCORE =
+                Comparator.<SearchHit>comparingDouble(hit -> hit.score).thenComparingInt(hit -> -hit.docId);
+
+        private final int docId;
+        private final DocumentKind kind;
+        private final String sourceId;
+        private final String patientId;
+        private final int entryIndex;
+        private final double score;
+
+        private SearchHit(int docId, DocumentKind kind, String sourceId, String patientId, int entryIndex,
+                          double score) {
+            this.docId = docId;
+            this.kind = kind;
+            this.sourceId = sourceId;
+            this.patientId = patientId;
+            this.entryIndex = entryIndex;
+            this.score = score;
+        }
+
+        public DocumentKind getKind() {
+            return kind;
+        }
+
+        // The treatment ID for a treatment, the patient ID for a history entry
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public String getPatientId() {
+            return patientId;
+        }
+
+        // Position of a history entry in the patient's medical history, -1 for a treatment
+        public int getEntryIndex() {
+            return entryIndex;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            String source = kind == DocumentKind.TREATMENT ? "Treatment " + sourceId
+                    : "History entry #" + (entryIndex + 1);
+            return String.format("%.3f  %s (patient %s)", score, source, patientId);
+        }
+    }
+}
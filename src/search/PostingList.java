@@ -0,0 +1,199 @@
+package search;
+
+import java.util.Arrays;
+
+// The documents containing one term, in increasing document order. Each posting is stored as the gap
+// from the previous document id followed by the term frequency, both as variable-length integers, so a
+// posting in a common term usually takes two bytes. Documents are only ever appended, never rewritten.
+// Postings are grouped in blocks of BLOCK_SIZE. Per block the list keeps where it starts, its last document,
+// and its impacts: the (frequency, document length) pairs no other posting in the block beats on both counts.
+// That is enough to skip a block without decoding it, and to bound the score of anything inside it, since a
+// BM25 term score only rises with frequency and falls with length. A block rarely has more than a few impacts.
+// Not thread-safe; the index guards it.
+class PostingList {
+    static final int BLOCK_SIZE = 128;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int documentCount;
+    private int lastDocId = -1;
+    private int blockCount;
+    private int[] blockOffsets = new int[1]; // byte offset of each block's first posting
+    private int[] blockBaseDocIds = new int[1]; // document before each block's first posting, -1 for the first
+    private int[] blockLastDocIds = new int[1];
+    private int[][] blockImpacts = new int[1][]; // frequency, length pairs by rising frequency and length
+
+    // documentLength is the document's weighted term count, the one BM25 normalizes by
+    void add(int docId, int frequency, int documentLength) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Postings must be added in document order: " + docId
+                    + " after " + lastDocId);
+        }
+        if (documentCount % BLOCK_SIZE == 0) {
+            startBlock();
+        }
+        int block = blockCount - 1;
+        blockLastDocIds[block] = docId;
+        blockImpacts[block] = addImpact(blockImpacts[block], frequency, documentLength);
+
+        ensureCapacity(10);
+        writeVarInt(docId - lastDocId);
+        writeVarInt(frequency);
+        lastDocId = docId;
+        documentCount++;
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    int getSizeInBytes() {
+        int size = length + blockCount * 3 * Integer.BYTES;
+        for (int block = 0; block < blockCount; block++) {
+            size += blockImpacts[block].length * Integer.BYTES;
+        }
+        return size;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void startBlock() {
+        if (blockCount == blockOffsets.length) {
+            int capacity = blockCount * 2;
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            blockBaseDocIds = Arrays.copyOf(blockBaseDocIds, capacity);
+            blockLastDocIds = Arrays.copyOf(blockLastDocIds, capacity);
+            blockImpacts = Arrays.copyOf(blockImpacts, capacity);
+        }
+        blockOffsets[blockCount] = length;
+        blockBaseDocIds[blockCount] = lastDocId;
+        blockImpacts[blockCount] = new int[0];
+        blockCount++;
+    }
+
+    // The impacts with (frequency, length) added, unless one already there has at least that frequency in a
+    // document no longer than that. Pairs the new one beats on both counts are dropped.
+    private static int[] addImpact(int[] impacts, int frequency, int documentLength) {
+        int kept = 0;
+        int[] result = new int[impacts.length + 2];
+        boolean placed = false;
+        for (int i = 0; i < impacts.length; i += 2) {
+            int f = impacts[i];
+            int l = impacts[i + 1];
+            if (f >= frequency && l <= documentLength) {
+                return impacts;
+            }
+            if (f <= frequency && l >= documentLength) {
+                continue;
+            }
+            if (!placed && f > frequency) {
+                result[kept++] = frequency;
+                result[kept++] = documentLength;
+                placed = true;
+            }
+            result[kept++] = f;
+            result[kept++] = l;
+        }
+        if (!placed) {
+            result[kept++] = frequency;
+            result[kept++] = documentLength;
+        }
+        return kept == result.length ? result : Arrays.copyOf(result, kept);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    // Decodes the list front to back. Positioned before the first posting until next() or advance() is called.
+    class Cursor {
+        private final int end = length; // postings appended after the cursor was opened are not seen
+        private final int blocks = blockCount;
+        private int block; // block of the current posting
+        private int offset;
+        private int docId = -1;
+        private int frequency;
+
+        boolean next() {
+            if (offset >= end) {
+                docId = Integer.MAX_VALUE;
+                return false;
+            }
+            if (block + 1 < blocks && offset == blockOffsets[block + 1]) {
+                block++;
+            }
+            docId += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        // Move to the first posting at or after target. Whole blocks ending before it are skipped undecoded.
+        boolean advance(int target) {
+            if (docId >= target) {
+                return docId != Integer.MAX_VALUE;
+            }
+            if (target > blockLastDocIds[block]) {
+                int next = block + 1;
+                while (next < blocks && blockLastDocIds[next] < target) {
+                    next++;
+                }
+                if (next == blocks) {
+                    offset = end;
+                    docId = Integer.MAX_VALUE;
+                    return false;
+                }
+                block = next;
+                offset = blockOffsets[next];
+                docId = blockBaseDocIds[next];
+            }
+            while (docId < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int docId() {
+            return docId;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        // Last document of the current posting's block
+        int blockLastDocId() {
+            return docId == Integer.MAX_VALUE ? Integer.MAX_VALUE : blockLastDocIds[block];
+        }
+
+        // Impacts of the current posting's block as frequency, length pairs. Shared, so read only.
+        int[] blockImpacts() {
+            return blockImpacts[block];
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
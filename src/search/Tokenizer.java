@@ -0,0 +1,44 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Splits clinical text into lower-case terms: runs of letters and digits, with single characters and
+// common English stopwords dropped. Negations such as "no" and "not" are kept: in clinical notes they carry
+// meaning, and a query for "no fever" should rank a note that says so above one that only mentions fever.
+// Indexing and querying share it, so a query term matches exactly the terms a document produced.
+public final class Tokenizer {
+    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "had", "have",
+            "he", "her", "his", "in", "is", "it", "its", "of", "on", "or", "she", "that", "the",
+            "their", "they", "this", "to", "was", "were", "will", "with"));
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                if (term.length() > 1) {
+                    String candidate = term.toString();
+                    if (!STOPWORDS.contains(candidate)) {
+                        terms.add(candidate);
+                    }
+                }
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+}
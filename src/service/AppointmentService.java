@@ -1,39 +1,87 @@
 package service;
 
+import event.EventBus;
 import model.Appointment;
+import model.AppointmentSeries;
 import model.Doctor;
 import model.Patient;
 import model.Staff;
+import model.Vocabulary;
+import model.WaitlistEntry;
 import repository.AppointmentRespository;
+import repository.AppointmentSeriesRepository;
 import repository.PatientRepository;
 import repository.StaffRepository;
+import repository.VersionConflictException;
+import repository.WaitlistRepository;
 import util.IdGenerator;
+import util.StringDictionary;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 public class AppointmentService {
+    private static final LocalTime WORKDAY_START = LocalTime.of(9, 0);
+    private static final LocalTime WORKDAY_END = LocalTime.of(17, 0);
+    private static final int SEARCH_HORIZON_DAYS = 28;
+    private static final int MAX_SERIES_OCCURRENCES = 260;
+    private static final int MAX_SERIES_INTERVAL_WEEKS = 52;
+    private static final int SERIES_MATERIALIZE_DAYS = 14; // recurring visits this close become real appointments
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_PLACEMENT_ATTEMPTS = 20; // slot searches per appointment in a bulk reschedule
+    private static final int BACKFILL_SCAN_LIMIT = 32; // waitlist entries looked at per queue when a slot frees up
+
     private AppointmentRespository appointmentRespository;
+    private AppointmentSeriesRepository seriesRepository;
+    private WaitlistRepository waitlistRepository;
     private PatientRepository patientRepository;
     private StaffRepository staffRepository;
     private AuthorizationService authService;
+    private EventBus eventBus;
 
     public AppointmentService(AppointmentRespository appointmentRespository,
+                              AppointmentSeriesRepository seriesRepository,
+                              WaitlistRepository waitlistRepository,
                               PatientRepository patientRepository,
                               StaffRepository staffRepository,
-                              AuthorizationService authService) {
+                              AuthorizationService authService,
+                              EventBus eventBus) {
         this.appointmentRespository = appointmentRespository;
+        this.seriesRepository = seriesRepository;
+        this.waitlistRepository = waitlistRepository;
         this.patientRepository = patientRepository;
         this.staffRepository = staffRepository;
         this.authService = authService;
+        this.eventBus = eventBus;
     }
 
     // Patient and doctor must exist. No scheduling conflicts.
     public Appointment scheduleAppointment(Staff currentStaff, String patientId,
                                            String doctorId, LocalDateTime dateTime)
             throws AuthorizationService.UnauthorizedException {
+        return scheduleAppointment(currentStaff, patientId, doctorId, dateTime,
+                Appointment.DEFAULT_DURATION_MINUTES);
+    }
+
+    // Schedule an appointment of a given length. It must not overlap any of the doctor's scheduled appointments.
+    public Appointment scheduleAppointment(Staff currentStaff, String patientId,
+                                           String doctorId, LocalDateTime dateTime, int durationMinutes)
+            throws AuthorizationService.UnauthorizedException {
         authService.requirePermission(currentStaff, "VIEW_HISTORY");
 
+        if (durationMinutes <= 0 || durationMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + Appointment.MAX_DURATION_MINUTES
+                    + " minutes. Provided: " + durationMinutes);
+        }
+
         // Validate date/time is not in the past
         if (dateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Cannot schedule appointments in the past. Date: " + dateTime);
@@ -55,25 +103,26 @@ public class AppointmentService {
             throw new IllegalArgumentException("Staff member " + doctorId + " is not a doctor. Role: " + staff.getRole());
         }
 
-        // Check for scheduling conflict
-        if (appointmentRespository.hasConflict(doctorId, dateTime)) {
-            throw new IllegalStateException(
-                    "Doctor " + doctorId + " already has an appointment at " + dateTime);
+        // Check for scheduling conflict. Recurring visits hold their slots in the same calendar.
+        if (appointmentRespository.hasConflict(doctorId, dateTime, durationMinutes)) {
+            throw new IllegalStateException("Doctor " + doctorId + " already has an appointment overlapping "
+                    + dateTime + " - " + dateTime.plusMinutes(durationMinutes).toLocalTime());
         }
 
         // Create an appointment
         String appointmentId = IdGenerator.generateAppointmentId();
-        Appointment appointment = new Appointment(appointmentId, patientId, doctorId, dateTime);
+        Appointment appointment = new Appointment(appointmentId, patientId, doctorId, dateTime, durationMinutes);
 
-        // Save appointment
+        // Save appointment. Booking the slots is atomic, so a concurrent overlapping booking fails here.
         if (!appointmentRespository.addAppointment(appointment)) {
-            throw new IllegalStateException("Failed to create appointment. ID may be duplicate: " + appointmentId);
+            throw new IllegalStateException("Failed to create appointment. The slot was just taken or the ID is duplicate: "
+                    + appointmentId);
         }
 
         // Add to patient's history
-        patient.addAppointment(appointmentId);
-        patientRepository.updatePatient(patient);
+        patientRepository.updatePatient(patientId, p -> p.addAppointment(appointmentId));
 
+        eventBus.publishAppointmentScheduled(appointment);
         return appointment;
     }
 
@@ -92,15 +141,162 @@ public class AppointmentService {
             throw new IllegalArgumentException("Appointment not found: " + appointmentId);
         }
 
-        appointment.setStatus(newStatus);
-        return appointmentRespository.updateAppointment(appointment);
+        // Compare-and-set so two clerks changing the same appointment can't silently overwrite each other
+        long version = appointment.getVersion();
+        Appointment.AppointmentStatus previousStatus = appointment.getStatus();
+        if (!appointmentRespository.updateAppointment(appointmentId, version,
+                apt -> apt.setStatus(newStatus))) {
+            return false;
+        }
+
+        eventBus.publishAppointmentStatusChanged(appointment, previousStatus, newStatus);
+        return true;
     }
 
-    // Cancel an appointment
+    // System transition used by the NoShowScheduler. Only an appointment that is still SCHEDULED changes.
+    boolean markNoShow(String appointmentId) {
+        while (true) {
+            Appointment appointment = appointmentRespository.findById(appointmentId);
+            if (appointment == null || appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+                return false;
+            }
+            long version = appointment.getVersion();
+            try {
+                if (!appointmentRespository.updateAppointment(appointmentId, version,
+                        apt -> apt.setStatus(Appointment.AppointmentStatus.NO_SHOW))) {
+                    return false;
+                }
+            } catch (VersionConflictException e) {
+                continue; // changed under us, look at the status again
+            }
+            eventBus.publishAppointmentStatusChanged(appointment,
+                    Appointment.AppointmentStatus.SCHEDULED, Appointment.AppointmentStatus.NO_SHOW);
+            return true;
+        }
+    }
+
+    // Cancel an appointment. A freed future slot is offered to the waitlist straight away.
     public boolean cancelAppointment(Staff currentStaff, String appointmentId)
             throws AuthorizationService.UnauthorizedException {
-        return updateAppointmentStatus(currentStaff, appointmentId,
-                Appointment.AppointmentStatus.CANCELLED);
+        return cancelAndBackfill(currentStaff, appointmentId).isCancelled();
+    }
+
+    // Cancel an appointment and book the freed slot for the most urgent waiting patient who fits in it
+    public CancellationResult cancelAndBackfill(Staff currentStaff, String appointmentId)
+            throws AuthorizationService.UnauthorizedException {
+        Appointment appointment = appointmentId != null ? appointmentRespository.findById(appointmentId) : null;
+        Appointment.AppointmentStatus previousStatus = appointment != null ? appointment.getStatus() : null;
+
+        if (!updateAppointmentStatus(currentStaff, appointmentId, Appointment.AppointmentStatus.CANCELLED)) {
+            return new CancellationResult(false, null);
+        }
+        if (previousStatus != Appointment.AppointmentStatus.SCHEDULED
+                || !appointment.getDateTime().isAfter(LocalDateTime.now())) {
+            return new CancellationResult(true, null);
+        }
+        return new CancellationResult(true, backfill(appointment));
+    }
+
+    // Put a patient on the waitlist for a doctor, or for any doctor of a department
+    public WaitlistEntry joinWaitlist(Staff currentStaff, String patientId, String doctorId, String department,
+                                      WaitlistEntry.TriagePriority priority, int durationMinutes)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        boolean byDoctor = doctorId != null && !doctorId.trim().isEmpty();
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        if (byDoctor == byDepartment) {
+            throw new IllegalArgumentException("Give either a doctor or a department to wait for");
+        }
+        if (priority == null) {
+            throw new IllegalArgumentException("Triage priority cannot be null");
+        }
+        if (durationMinutes <= 0 || durationMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + Appointment.MAX_DURATION_MINUTES
+                    + " minutes. Provided: " + durationMinutes);
+        }
+        if (patientRepository.findById(patientId) == null) {
+            throw new IllegalArgumentException("Patient not found: " + patientId);
+        }
+        if (byDoctor && !(staffRepository.findById(doctorId.trim()) instanceof Doctor)) {
+            throw new IllegalArgumentException("Doctor not found: " + doctorId);
+        }
+
+        WaitlistEntry entry = new WaitlistEntry(IdGenerator.generateWaitlistId(), patientId,
+                byDoctor ? doctorId.trim() : null, byDepartment ? department.trim() : null,
+                priority, durationMinutes, waitlistRepository.nextSequence());
+        if (!waitlistRepository.addEntry(entry)) {
+            throw new IllegalStateException("Failed to add waitlist entry - Duplicate ID: " + entry.getEntryId());
+        }
+        return entry;
+    }
+
+    public boolean leaveWaitlist(Staff currentStaff, String entryId)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        WaitlistEntry entry = waitlistRepository.findById(entryId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Waitlist entry not found: " + entryId);
+        }
+        return waitlistRepository.removeEntry(entry);
+    }
+
+    // Everyone waiting, most urgent first
+    public List<WaitlistEntry> getWaitlist() {
+        return waitlistRepository.findAll();
+    }
+
+    // Offer a freed slot to the doctor's and the department's waitlists. Each pass copies up to
+    // BACKFILL_SCAN_LIMIT entries off the front of both queues and, for every entry short enough to fit, checks
+    // the patient's timeline and series for a clash: at most 2 * BACKFILL_SCAN_LIMIT entries and patient
+    // checks, then one booking. A pass only repeats when a concurrent cancellation claimed the chosen entry
+    // first, so each extra pass is paid for by an entry some other cancellation booked.
+    private Appointment backfill(Appointment freed) {
+        Staff staff = staffRepository.findById(freed.getDoctorId());
+        if (!(staff instanceof Doctor)) {
+            return null;
+        }
+
+        while (true) {
+            WaitlistEntry best = firstFitting(waitlistRepository.peekByDoctor(freed.getDoctorId(), BACKFILL_SCAN_LIMIT),
+                    freed);
+            WaitlistEntry fromDepartment = firstFitting(
+                    waitlistRepository.peekByDepartment(staff.getDepartment(), BACKFILL_SCAN_LIMIT), freed);
+            if (best == null || (fromDepartment != null
+                    && WaitlistRepository.BY_PRIORITY.compare(fromDepartment, best) < 0)) {
+                best = fromDepartment;
+            }
+            if (best == null) {
+                return null;
+            }
+            if (!waitlistRepository.removeEntry(best)) {
+                continue; // another cancellation claimed this patient first
+            }
+
+            Appointment booked = new Appointment(IdGenerator.generateAppointmentId(), best.getPatientId(),
+                    freed.getDoctorId(), freed.getDateTime(), best.getDurationMinutes());
+            if (!appointmentRespository.addAppointment(booked)) {
+                waitlistRepository.addEntry(best); // slot already taken again, patient keeps their place
+                return null;
+            }
+
+            patientRepository.updatePatient(best.getPatientId(), p -> p.addAppointment(booked.getAppointmentId()));
+            eventBus.publishAppointmentScheduled(booked);
+            return booked;
+        }
+    }
+
+    // Most urgent entry whose visit fits in the freed slot and whose patient has nothing else booked then
+    private WaitlistEntry firstFitting(List<WaitlistEntry> candidates, Appointment freed) {
+        for (WaitlistEntry entry : candidates) {
+            if (entry.getDurationMinutes() <= freed.getDurationMinutes()
+                    && patientBusyUntil(entry.getPatientId(), freed.getDateTime(), entry.getDurationMinutes(),
+                    Collections.emptySet(), Collections.emptyList()) == null) {
+                return entry;
+            }
+        }
+        return null;
     }
 
     // Complete an appointment
@@ -134,7 +330,219 @@ public class AppointmentService {
         if (date == null) {
             throw new IllegalArgumentException("Date cannot be null");
         }
-        return appointmentRespository.findByDoctorAndDate(doctorId, date);
+        List<Appointment> schedule = appointmentRespository.findByDoctorAndDate(doctorId, date);
+        LocalDate day = date.toLocalDate();
+        for (AppointmentSeries series : seriesRepository.findByDoctorId(doctorId)) {
+            schedule.addAll(series.expand(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        }
+        schedule.sort(Comparator.comparing(Appointment::getDateTime));
+        return schedule;
+    }
+
+    // A doctor's appointments overlapping [from, to), with recurring series expanded into occurrences
+    public List<Appointment> getDoctorAppointmentsBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+        if (doctorId == null || doctorId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Doctor ID cannot be empty");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range must have a start before its end");
+        }
+        List<Appointment> result = appointmentRespository.findByDoctorBetween(doctorId, from, to);
+        for (AppointmentSeries series : seriesRepository.findByDoctorId(doctorId)) {
+            result.addAll(series.expand(from, to));
+        }
+        result.sort(Comparator.comparing(Appointment::getDateTime));
+        return result;
+    }
+
+    // Book a standing appointment every intervalWeeks weeks. The series is filed with the doctor's calendar as a
+    // rule in one step, so one-off bookings and other series see its visits straight away. Visits within the
+    // next SERIES_MATERIALIZE_DAYS become appointments with their own slots now; the rest are materialized as
+    // the date approaches.
+    public AppointmentSeries scheduleSeries(Staff currentStaff, String patientId, String doctorId,
+                                            LocalDateTime firstStart, int durationMinutes,
+                                            int intervalWeeks, int occurrences)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (firstStart == null || firstStart.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Cannot start a series in the past. Date: " + firstStart);
+        }
+        if (durationMinutes <= 0 || durationMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + Appointment.MAX_DURATION_MINUTES
+                    + " minutes. Provided: " + durationMinutes);
+        }
+        if (intervalWeeks <= 0 || intervalWeeks > MAX_SERIES_INTERVAL_WEEKS) {
+            throw new IllegalArgumentException("Interval must be between 1 and " + MAX_SERIES_INTERVAL_WEEKS
+                    + " weeks. Provided: " + intervalWeeks);
+        }
+        if (occurrences <= 0 || occurrences > MAX_SERIES_OCCURRENCES) {
+            throw new IllegalArgumentException("Number of visits must be between 1 and " + MAX_SERIES_OCCURRENCES
+                    + ". Provided: " + occurrences);
+        }
+        if (patientRepository.findById(patientId) == null) {
+            throw new IllegalArgumentException("Patient not found: " + patientId);
+        }
+        Staff staff = staffRepository.findById(doctorId);
+        if (!(staff instanceof Doctor)) {
+            throw new IllegalArgumentException("Doctor not found: " + doctorId);
+        }
+
+        AppointmentSeries series = new AppointmentSeries(IdGenerator.generateSeriesId(), patientId, doctorId,
+                firstStart, durationMinutes, intervalWeeks, occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            LocalDateTime start = series.getOccurrenceStart(i);
+            if (appointmentRespository.hasConflict(doctorId, start, durationMinutes)) {
+                throw new IllegalStateException("Doctor " + doctorId + " is already booked for visit "
+                        + (i + 1) + " of the series on " + start);
+            }
+        }
+        if (!appointmentRespository.reserveSeries(series)) {
+            throw new IllegalStateException("Doctor " + doctorId + " was just booked during one of the series' visits."
+                    + " Nothing was scheduled.");
+        }
+
+        if (!seriesRepository.addSeries(series)) {
+            appointmentRespository.releaseSeries(series);
+            throw new IllegalStateException("Failed to create series. ID may be duplicate: " + series.getSeriesId());
+        }
+        materialize(series, LocalDateTime.now().plusDays(SERIES_MATERIALIZE_DAYS));
+        return series;
+    }
+
+    // Turn the visits of every active series starting within the next SERIES_MATERIALIZE_DAYS into
+    // appointments. Run periodically by the SeriesMaterializer. Returns how many were added.
+    public int materializeDueOccurrences(LocalDateTime now) {
+        LocalDateTime until = now.plusDays(SERIES_MATERIALIZE_DAYS);
+        int added = 0;
+        for (AppointmentSeries series : seriesRepository.findAll()) {
+            if (series.isActive()) {
+                added += materialize(series, until);
+            }
+        }
+        return added;
+    }
+
+    // Hand the series' pending visits starting before 'until' to the appointments, where no-show timers,
+    // reminders, dashboards, counters and bulk reschedule see them like any other booking
+    private int materialize(AppointmentSeries series, LocalDateTime until) {
+        List<Appointment> added = new ArrayList<>();
+        synchronized (series) {
+            int index = series.getMaterializedCount();
+            while (index < series.getOccurrenceCount() && series.getOccurrenceStart(index).isBefore(until)) {
+                if (series.isPending(index)) {
+                    Appointment occurrence = appointmentRespository.addOccurrence(series, index);
+                    if (occurrence != null) {
+                        added.add(occurrence);
+                    }
+                }
+                index++;
+            }
+            series.setMaterializedCount(index);
+            if (index == series.getOccurrenceCount()) {
+                appointmentRespository.releaseSeries(series);
+            }
+        }
+        for (Appointment occurrence : added) {
+            patientRepository.updatePatient(occurrence.getPatientId(),
+                    p -> p.addAppointment(occurrence.getAppointmentId()));
+            eventBus.publishAppointmentScheduled(occurrence);
+        }
+        return added.size();
+    }
+
+    // Cancel a whole series, or a single visit when given an occurrence ID like SR6001#3.
+    // Only the series' doctor or admin staff may do this.
+    public boolean cancelSeries(Staff currentStaff, String seriesOrOccurrenceId)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (seriesOrOccurrenceId == null || seriesOrOccurrenceId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Series ID cannot be empty");
+        }
+        String[] parts = seriesOrOccurrenceId.trim().split("#");
+        AppointmentSeries series = seriesRepository.findById(parts[0]);
+        if (series == null) {
+            throw new IllegalArgumentException("Series not found: " + parts[0]);
+        }
+        if (!series.getDoctorId().equals(currentStaff.getStaffId()) && !authService.canOnboardPatients(currentStaff)) {
+            throw new AuthorizationService.UnauthorizedException("Only the series' doctor or admin staff can cancel it."
+                    + " Your role: " + currentStaff.getRole());
+        }
+
+        if (parts.length == 1) {
+            List<Integer> materialized = new ArrayList<>();
+            synchronized (series) {
+                if (!series.isActive()) {
+                    throw new IllegalArgumentException("Series already cancelled: " + parts[0]);
+                }
+                for (int i = 0; i < series.getMaterializedCount(); i++) {
+                    if (series.isOccurring(i)) {
+                        materialized.add(i);
+                    }
+                }
+                series.cancel();
+                appointmentRespository.releaseSeries(series);
+            }
+            // Visits already handed to the appointments are cancelled like any appointment
+            LocalDateTime now = LocalDateTime.now();
+            for (int index : materialized) {
+                if (series.getOccurrenceStart(index).isAfter(now)) {
+                    cancelOccurrence(series.toAppointment(index).getAppointmentId());
+                }
+            }
+            return true;
+        }
+
+        int index;
+        try {
+            index = Integer.parseInt(parts[1]) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid occurrence ID: " + seriesOrOccurrenceId);
+        }
+        synchronized (series) {
+            if (series.isPending(index)) {
+                // No longer pending, so the series' rule stops holding its time
+                series.skipOccurrence(index);
+                return true;
+            }
+            if (!series.isOccurring(index)) {
+                throw new IllegalArgumentException("Occurrence not found or already cancelled: " + seriesOrOccurrenceId);
+            }
+        }
+        if (!cancelOccurrence(series.toAppointment(index).getAppointmentId())) {
+            throw new IllegalArgumentException("Occurrence not found or already cancelled: " + seriesOrOccurrenceId);
+        }
+        return true;
+    }
+
+    // Cancel a materialized visit if it is still SCHEDULED
+    private boolean cancelOccurrence(String appointmentId) {
+        while (true) {
+            Appointment appointment = appointmentRespository.findById(appointmentId);
+            if (appointment == null || appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+                return false;
+            }
+            try {
+                if (!appointmentRespository.updateAppointment(appointmentId, appointment.getVersion(),
+                        apt -> apt.setStatus(Appointment.AppointmentStatus.CANCELLED))) {
+                    return false;
+                }
+            } catch (VersionConflictException e) {
+                continue;
+            }
+            eventBus.publishAppointmentStatusChanged(appointment,
+                    Appointment.AppointmentStatus.SCHEDULED, Appointment.AppointmentStatus.CANCELLED);
+            return true;
+        }
+    }
+
+    // Active recurring series of a patient
+    public List<AppointmentSeries> getPatientSeries(String patientId) {
+        if (patientId == null || patientId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patient ID cannot be empty");
+        }
+        return seriesRepository.findByPatientId(patientId);
     }
 
     // Get all scheduled (upcoming) appointments
@@ -158,4 +566,455 @@ public class AppointmentService {
     public List<Appointment> getAllAppointments() {
         return appointmentRespository.findAll();
     }
+
+    // Appointments across the hospital starting in [from, to), a page at a time. Status and department are optional.
+    public AppointmentRespository.Page findAppointmentsBetween(LocalDateTime from, LocalDateTime to,
+                                                               Appointment.AppointmentStatus status,
+                                                               String department, String cursor, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE
+                    + ". Provided: " + pageSize);
+        }
+        Set<String> doctorIds = null;
+        if (department != null && !department.trim().isEmpty()) {
+            doctorIds = new HashSet<>();
+            for (Staff staff : staffRepository.findByDepartment(department.trim())) {
+                if (staff instanceof Doctor) {
+                    doctorIds.add(staff.getStaffId());
+                }
+            }
+        }
+        return appointmentRespository.findStartingBetween(from, to, status, doctorIds, cursor, pageSize);
+    }
+
+    // Move every SCHEDULED appointment a doctor has in [from, to) when they become unavailable.
+    // Each appointment goes to an equivalent doctor (same specialization, else same department) who is free
+    // at the same time, otherwise to the earliest free slot with them or the original doctor after 'to'.
+    // The patient must be free at the new time as well. Recurring visits already materialized are moved like
+    // any appointment; ranges holding visits beyond the materialization horizon are refused.
+    // All or nothing: replacements only hold their slots until every original is cancelled, and nobody sees
+    // them before that. If any step fails, every change is rolled back.
+    public RescheduleReport rescheduleDoctorAppointments(Staff currentStaff, String doctorId,
+                                                         LocalDateTime from, LocalDateTime to)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        Staff staff = staffRepository.findById(doctorId);
+        if (!(staff instanceof Doctor)) {
+            throw new IllegalArgumentException("Doctor not found: " + doctorId);
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Unavailability range must have a start before its end");
+        }
+        Doctor doctor = (Doctor) staff;
+
+        for (AppointmentSeries series : seriesRepository.findByDoctorId(doctorId)) {
+            List<Appointment> recurring = series.expand(from, to);
+            if (!recurring.isEmpty()) {
+                throw new IllegalStateException("Recurring visit " + recurring.get(0).getAppointmentId() + " at "
+                        + recurring.get(0).getDateTime() + " is more than " + SERIES_MATERIALIZE_DAYS
+                        + " days ahead and falls in the range. Move or cancel the series first.");
+            }
+        }
+
+        // Affected appointments, straight from the per-doctor time index
+        List<Appointment> affected = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        Set<String> moving = new HashSet<>();
+        for (Appointment apt : appointmentRespository.findByDoctorBetween(doctorId, from, to)) {
+            if (apt.getStatus() == Appointment.AppointmentStatus.SCHEDULED) {
+                versions.add(apt.getVersion());
+                affected.add(apt);
+                moving.add(apt.getAppointmentId());
+            }
+        }
+
+        List<Doctor> equivalents = findEquivalentDoctors(doctor);
+        List<Doctor> laterCandidates = new ArrayList<>(equivalents);
+        laterCandidates.add(doctor);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime laterFrom = to.isAfter(now) ? to : now;
+
+        // Single pass: hold slots for each replacement. Holds keep the time from other bookings and from later
+        // appointments in the pass, but the replacements themselves don't exist yet.
+        List<RescheduleReport.Move> moves = new ArrayList<>();
+        List<AppointmentRespository.Reservation> holds = new ArrayList<>();
+        List<AppointmentRespository.Reservation> originalHolds = new ArrayList<>();
+        int added = 0;
+        try {
+            for (Appointment original : affected) {
+                AppointmentRespository.Reservation hold = placeReplacement(original, equivalents, laterCandidates,
+                        laterFrom, now, moving, moves);
+                if (hold == null) {
+                    throw new IllegalStateException("No free slot for appointment " + original.getAppointmentId()
+                            + " within " + SEARCH_HORIZON_DAYS + " days. Nothing was rescheduled.");
+                }
+                Appointment replacement = new Appointment(IdGenerator.generateAppointmentId(),
+                        original.getPatientId(), hold.getDoctorId(), hold.getStart(), hold.getDurationMinutes());
+                holds.add(hold);
+                moves.add(new RescheduleReport.Move(original, replacement));
+            }
+
+            // Commit: cancel the originals at the versions we read, keeping their slots until the end,
+            // then turn the holds into the replacements
+            for (int i = 0; i < affected.size(); i++) {
+                Appointment original = affected.get(i);
+                AppointmentRespository.Reservation originalHold;
+                try {
+                    originalHold = appointmentRespository.cancelAndHold(original.getAppointmentId(), versions.get(i));
+                } catch (VersionConflictException e) {
+                    originalHold = null;
+                }
+                if (originalHold == null) {
+                    throw new IllegalStateException("Appointment " + original.getAppointmentId()
+                            + " was changed by someone else. Nothing was rescheduled.");
+                }
+                originalHolds.add(originalHold);
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                if (!appointmentRespository.addAppointment(moves.get(i).getReplacement(), holds.get(i))) {
+                    throw new IllegalStateException("Failed to book replacement "
+                            + moves.get(i).getReplacement().getAppointmentId() + ". Nothing was rescheduled.");
+                }
+                added++;
+            }
+        } catch (RuntimeException e) {
+            rollback(moves, holds, added, originalHolds);
+            throw e;
+        }
+        for (AppointmentRespository.Reservation originalHold : originalHolds) {
+            appointmentRespository.releaseHold(originalHold);
+        }
+
+        // Only announce once everything is in place
+        for (RescheduleReport.Move move : moves) {
+            Appointment replacement = move.getReplacement();
+            patientRepository.updatePatient(replacement.getPatientId(),
+                    p -> p.addAppointment(replacement.getAppointmentId()));
+            eventBus.publishAppointmentStatusChanged(move.getOriginal(),
+                    Appointment.AppointmentStatus.SCHEDULED, Appointment.AppointmentStatus.CANCELLED);
+            eventBus.publishAppointmentScheduled(replacement);
+        }
+        return new RescheduleReport(doctor, from, to, moves);
+    }
+
+    // Hold a slot for the original's replacement, or null if there is none within the horizon
+    private AppointmentRespository.Reservation placeReplacement(Appointment original, List<Doctor> equivalents,
+                                                                List<Doctor> laterCandidates, LocalDateTime laterFrom,
+                                                                LocalDateTime now, Set<String> moving,
+                                                                List<RescheduleReport.Move> placed) {
+        int duration = original.getDurationMinutes();
+        String patientId = original.getPatientId();
+
+        // Same time with an equivalent doctor keeps the patient's day intact, unless that time has passed
+        if (!original.getDateTime().isBefore(now)
+                && patientBusyUntil(patientId, original.getDateTime(), duration, moving, placed) == null) {
+            for (Doctor candidate : equivalents) {
+                AppointmentRespository.Reservation hold = appointmentRespository.tryHold(candidate.getStaffId(), original.getDateTime(),
+                        duration);
+                if (hold != null) {
+                    return hold;
+                }
+            }
+        }
+
+        // Otherwise the earliest slot after the unavailability when the patient is free too.
+        // Step past the patient's own bookings, and retry if someone takes the slot first.
+        LocalDateTime searchFrom = laterFrom;
+        for (int attempt = 0; attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+            List<AvailableSlot> slots = findNextAvailableSlots(laterCandidates, searchFrom, duration,
+                    1, SEARCH_HORIZON_DAYS);
+            if (slots.isEmpty()) {
+                return null;
+            }
+            AvailableSlot slot = slots.get(0);
+            LocalDateTime busyUntil = patientBusyUntil(patientId, slot.getStart(), duration, moving, placed);
+            if (busyUntil != null) {
+                searchFrom = busyUntil;
+                continue;
+            }
+            AppointmentRespository.Reservation hold = appointmentRespository.tryHold(slot.getDoctorId(), slot.getStart(), duration);
+            if (hold != null) {
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    // End of the patient's first booking overlapping the range, or null if they are free. Covers scheduled
+    // appointments other than those being moved, recurring visits, and replacements placed so far.
+    private LocalDateTime patientBusyUntil(String patientId, LocalDateTime start, int durationMinutes,
+                                           Set<String> moving, List<RescheduleReport.Move> placed) {
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        for (Appointment apt : appointmentRespository.findByPatientBetween(patientId, start, end)) {
+            if (apt.getStatus() == Appointment.AppointmentStatus.SCHEDULED
+                    && !moving.contains(apt.getAppointmentId())) {
+                return apt.getEndDateTime();
+            }
+        }
+        for (AppointmentSeries series : seriesRepository.findByPatientId(patientId)) {
+            int index = series.findOverlapping(start, durationMinutes);
+            if (index >= 0) {
+                return series.getOccurrenceStart(index).plusMinutes(series.getDurationMinutes());
+            }
+        }
+        for (RescheduleReport.Move move : placed) {
+            Appointment replacement = move.getReplacement();
+            if (replacement.getPatientId().equals(patientId)
+                    && replacement.getDateTime().isBefore(end) && replacement.getEndDateTime().isAfter(start)) {
+                return replacement.getEndDateTime();
+            }
+        }
+        return null;
+    }
+
+    // Undo a failed reschedule: drop the replacements (added or only held) and reinstate the originals
+    private void rollback(List<RescheduleReport.Move> moves, List<AppointmentRespository.Reservation> holds,
+                          int added, List<AppointmentRespository.Reservation> originalHolds) {
+        for (int i = 0; i < holds.size(); i++) {
+            if (i < added) {
+                appointmentRespository.removeAppointment(moves.get(i).getReplacement().getAppointmentId());
+            } else {
+                appointmentRespository.releaseHold(holds.get(i));
+            }
+        }
+        for (int i = 0; i < originalHolds.size(); i++) {
+            Appointment original = moves.get(i).getOriginal();
+            if (!appointmentRespository.restoreFromHold(original.getAppointmentId(), originalHolds.get(i))) {
+                appointmentRespository.releaseHold(originalHolds.get(i));
+            }
+        }
+    }
+
+    // Doctors who can stand in: same specialization, falling back to the same department
+    private List<Doctor> findEquivalentDoctors(Doctor doctor) {
+        List<Doctor> equivalents = new ArrayList<>();
+        for (Doctor candidate : findDoctors(null, doctor.getSpecialization())) {
+            if (!candidate.getStaffId().equals(doctor.getStaffId())) {
+                equivalents.add(candidate);
+            }
+        }
+        if (equivalents.isEmpty()) {
+            for (Doctor candidate : findDoctors(doctor.getDepartment(), null)) {
+                if (!candidate.getStaffId().equals(doctor.getStaffId())) {
+                    equivalents.add(candidate);
+                }
+            }
+        }
+        return equivalents;
+    }
+
+    // Earliest free slots across all doctors of a department and/or specialization, soonest first.
+    public List<AvailableSlot> findNextAvailableSlots(String department, String specialization,
+                                                      LocalDateTime from, int durationMinutes, int count) {
+        return findNextAvailableSlots(findDoctors(department, specialization), from, durationMinutes,
+                count, SEARCH_HORIZON_DAYS);
+    }
+
+    // Each doctor's calendar yields its free slots lazily. A priority queue holds every doctor's next
+    // slot, so each result costs one bitmap scan plus O(log doctors).
+    List<AvailableSlot> findNextAvailableSlots(List<Doctor> doctors, LocalDateTime from,
+                                               int durationMinutes, int count, int horizonDays) {
+        if (durationMinutes <= 0 || durationMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + Appointment.MAX_DURATION_MINUTES
+                    + " minutes. Provided: " + durationMinutes);
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of slots must be positive. Provided: " + count);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        LocalDate lastDay = start.toLocalDate().plusDays(horizonDays);
+
+        PriorityQueue<AvailableSlot> queue = new PriorityQueue<>(
+                Comparator.comparing(AvailableSlot::getStart).thenComparing(AvailableSlot::getDoctorId));
+        for (Doctor doctor : doctors) {
+            AvailableSlot slot = nextSlot(doctor, start, durationMinutes, lastDay);
+            if (slot != null) {
+                queue.add(slot);
+            }
+        }
+
+        List<AvailableSlot> result = new ArrayList<>();
+        while (result.size() < count && !queue.isEmpty()) {
+            AvailableSlot slot = queue.poll();
+            result.add(slot);
+            AvailableSlot next = nextSlot(slot.doctor, slot.getEnd(), durationMinutes, lastDay);
+            if (next != null) {
+                queue.add(next);
+            }
+        }
+        return result;
+    }
+
+    private AvailableSlot nextSlot(Doctor doctor, LocalDateTime from, int durationMinutes, LocalDate lastDay) {
+        // Recurring visits hold their slots in the calendar bitmap too, so the first free run is the answer
+        LocalDateTime start = appointmentRespository.findNextFreeSlot(doctor.getStaffId(), from,
+                durationMinutes, WORKDAY_START, WORKDAY_END, lastDay);
+        return start == null ? null : new AvailableSlot(doctor, start, durationMinutes);
+    }
+
+    // Doctors matching a department and/or specialization. At least one must be given.
+    List<Doctor> findDoctors(String department, String specialization) {
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        boolean bySpecialization = specialization != null && !specialization.trim().isEmpty();
+        if (!byDepartment && !bySpecialization) {
+            throw new IllegalArgumentException("Department or specialization must be given");
+        }
+
+        List<Staff> candidates = bySpecialization
+                ? staffRepository.findBySpecialization(specialization.trim())
+                : staffRepository.findByDepartment(department.trim());
+        List<Doctor> doctors = new ArrayList<>();
+        int departmentGroup = byDepartment ? Vocabulary.DEPARTMENT.findGroup(department) : StringDictionary.NONE;
+        for (Staff staff : candidates) {
+            if (staff instanceof Doctor && (!byDepartment
+                    || Vocabulary.DEPARTMENT.groupOf(staff.getDepartmentCode()) == departmentGroup)) {
+                doctors.add((Doctor) staff);
+            }
+        }
+        return doctors;
+    }
+
+    // Outcome of a cancellation, with the waitlist booking that took over the slot if there was one
+    public static class CancellationResult {
+        private boolean cancelled;
+        private Appointment backfill;
+
+        public CancellationResult(boolean cancelled, Appointment backfill) {
+            this.cancelled = cancelled;
+            this.backfill = backfill;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public Appointment getBackfill() {
+            return backfill;
+        }
+    }
+
+    // Summary of a bulk reschedule
+    public static class RescheduleReport {
+        private Doctor doctor;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private List<Move> moves;
+
+        public RescheduleReport(Doctor doctor, LocalDateTime from, LocalDateTime to, List<Move> moves) {
+            this.doctor = doctor;
+            this.from = from;
+            this.to = to;
+            this.moves = moves;
+        }
+
+        public Doctor getDoctor() {
+            return doctor;
+        }
+
+        public List<Move> getMoves() {
+            return moves;
+        }
+
+        public int getReassignedCount() {
+            int count = 0;
+            for (Move move : moves) {
+                if (move.isSameTime()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public int getPostponedCount() {
+            return moves.size() - getReassignedCount();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n========== RESCHEDULE REPORT ==========\n");
+            sb.append("Dr. ").append(doctor.getName()).append(" (").append(doctor.getStaffId())
+                    .append(") unavailable ").append(from).append(" - ").append(to).append("\n");
+            sb.append("Appointments moved: ").append(moves.size())
+                    .append(" (").append(getReassignedCount()).append(" to another doctor at the same time, ")
+                    .append(getPostponedCount()).append(" to a later slot)\n\n");
+            for (Move move : moves) {
+                sb.append(move).append("\n");
+            }
+            sb.append("=======================================\n");
+            return sb.toString();
+        }
+
+        // One appointment and the one that replaced it
+        public static class Move {
+            private Appointment original;
+            private Appointment replacement;
+
+            public Move(Appointment original, Appointment replacement) {
+                this.original = original;
+                this.replacement = replacement;
+            }
+
+            public Appointment getOriginal() {
+                return original;
+            }
+
+            public Appointment getReplacement() {
+                return replacement;
+            }
+
+            public boolean isSameTime() {
+                return original.getDateTime().equals(replacement.getDateTime());
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%s (Patient %s, %s) -> %s with Doctor %s on %s",
+                        original.getAppointmentId(), original.getPatientId(), original.getDateTime(),
+                        replacement.getAppointmentId(), replacement.getDoctorId(), replacement.getDateTime());
+            }
+        }
+    }
+
+    // A free slot with a specific doctor
+    public static class AvailableSlot {
+        private Doctor doctor;
+        private LocalDateTime start;
+        private int durationMinutes;
+
+        public AvailableSlot(Doctor doctor, LocalDateTime start, int durationMinutes) {
+            this.doctor = doctor;
+            this.start = start;
+            this.durationMinutes = durationMinutes;
+        }
+
+        public Doctor getDoctor() {
+            return doctor;
+        }
+
+        public String getDoctorId() {
+            return doctor.getStaffId();
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public LocalDateTime getEnd() {
+            return start.plusMinutes(durationMinutes);
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s - %s with Dr. %s (%s)",
+                    start, getEnd().toLocalTime(), doctor.getName(), doctor.getStaffId());
+        }
+    }
 }
\ No newline at end of file
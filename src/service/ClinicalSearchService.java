@@ -0,0 +1,88 @@
+package service;
+
+import model.Patient;
+import model.Staff;
+import model.TreatmentRecord;
+import repository.PatientRepository;
+import repository.TreatmentRepository;
+import search.ClinicalTextIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keyword search over treatment notes and medical history. The index ranks the matches;
+// this service checks access and looks up the text of the top hits only.
+public class ClinicalSearchService {
+    private static final int MAX_RESULTS = 100;
+
+    private ClinicalTextIndex index;
+    private PatientRepository patientRepository;
+    private TreatmentRepository treatmentRepository;
+    private AuthorizationService authService;
+
+    public ClinicalSearchService(ClinicalTextIndex index, PatientRepository patientRepository,
+                                 TreatmentRepository treatmentRepository, AuthorizationService authService) {
+        this.index = index;
+        this.patientRepository = patientRepository;
+        this.treatmentRepository = treatmentRepository;
+        this.authService = authService;
+    }
+
+    public List<SearchResult> search(Staff currentStaff, String query, int limit)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (limit <= 0 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RESULTS + ": " + limit);
+        }
+
+        List<SearchResult> results = new ArrayList<>();
+        for (ClinicalTextIndex.SearchHit hit : index.search(query, limit)) {
+            String text = resolveText(hit);
+            if (text != null) {
+                results.add(new SearchResult(hit, text));
+            }
+        }
+        return results;
+    }
+
+    private String resolveText(ClinicalTextIndex.SearchHit hit) {
+        if (hit.getKind() == ClinicalTextIndex.DocumentKind.TREATMENT) {
+            TreatmentRecord treatment = treatmentRepository.findById(hit.getSourceId());
+            return treatment == null ? null : treatment.getDiagnosis() + " - " + treatment.getTreatmentNotes();
+        }
+        Patient patient = patientRepository.findById(hit.getPatientId());
+        if (patient == null) {
+            return null;
+        }
+        return hit.getEntryIndex() < patient.getMedicalHistoryCount()
+                ? patient.getMedicalHistoryEntry(hit.getEntryIndex()) : null;
+    }
+
+    // A ranked hit together with the text it matched
+    public static class SearchResult {
+        private ClinicalTextIndex.SearchHit hit;
+        private String text;
+
+        public SearchResult(ClinicalTextIndex.SearchHit hit, String text) {
+            this.hit = hit;
+            this.text = text;
+        }
+
+        public ClinicalTextIndex.SearchHit getHit() {
+            return hit;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return hit + "\n    " + text;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package service;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Appointment;
+import model.Doctor;
+import model.Prescription;
+import model.Staff;
+import model.TreatmentRecord;
+import repository.StaffRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Per-doctor read models kept up to date from domain events, so a dashboard never scans a repository.
+// Loading one costs the size of that doctor's day, not the size of the hospital. The panel size is read from
+// the doctor's own panel, which PatientService keeps in step with assignments.
+public class DoctorDashboardService implements DomainEventListener {
+    private static final int RECENT_LIMIT = 10;
+    private static final Comparator<Appointment> BY_TIME =
+            Comparator.comparing(Appointment::getDateTime).thenComparing(Appointment::getAppointmentId);
+
+    private StaffRepository staffRepository;
+    private AuthorizationService authService;
+    private final Map<String, DoctorReadModel> readModels; // doctorId -> read model
+
+    public DoctorDashboardService(StaffRepository staffRepository, AuthorizationService authService) {
+        this.staffRepository = staffRepository;
+        this.authService = authService;
+        this.readModels = new ConcurrentHashMap<>();
+    }
+
+    // Get a doctor's dashboard for today
+    public DoctorDashboard getDashboard(Staff currentStaff, String doctorId)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (doctorId == null || doctorId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Doctor ID cannot be empty");
+        }
+        Staff staff = staffRepository.findById(doctorId);
+        if (!(staff instanceof Doctor)) {
+            throw new IllegalArgumentException("Doctor not found: " + doctorId);
+        }
+
+        Doctor doctor = (Doctor) staff;
+        LocalDate today = LocalDate.now();
+        DoctorReadModel model = readModels.get(doctorId);
+        if (model == null) {
+            return new DoctorDashboard(doctor, today, new ArrayList<>(), doctor.getAssignedPatientCount(),
+                    new ArrayList<>(), new ArrayList<>());
+        }
+        return model.snapshot(doctor, today);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        switch (event.getType()) {
+            case APPOINTMENT_SCHEDULED:
+                readModel(event.getAppointment().getDoctorId()).schedule.add(event.getAppointment());
+                break;
+            case APPOINTMENT_STATUS_CHANGED:
+                if (event.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+                    readModel(event.getAppointment().getDoctorId()).schedule.remove(event.getAppointment());
+                }
+                break;
+            case PRESCRIPTION_CREATED:
+                Prescription prescription = event.getPrescription();
+                readModel(prescription.getPrescribingDoctorId()).addRecent(prescription);
+                break;
+            case TREATMENT_RECORDED:
+                TreatmentRecord treatment = event.getTreatment();
+                readModel(treatment.getAttendingDoctorId()).addRecent(treatment);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private DoctorReadModel readModel(String doctorId) {
+        return readModels.computeIfAbsent(doctorId, id -> new DoctorReadModel());
+    }
+
+    private static Appointment timeProbe(LocalDateTime dateTime) {
+        return new Appointment("", "", "", dateTime);
+    }
+
+    // Mutable state for one doctor. Written by the event thread, read by dashboard callers.
+    private static class DoctorReadModel {
+        private final NavigableSet<Appointment> schedule = new ConcurrentSkipListSet<>(BY_TIME);
+        private final Deque<Prescription> recentPrescriptions = new ArrayDeque<>();
+        private final Deque<TreatmentRecord> recentTreatments = new ArrayDeque<>();
+
+        synchronized void addRecent(Prescription prescription) {
+            recentPrescriptions.addFirst(prescription);
+            if (recentPrescriptions.size() > RECENT_LIMIT) {
+                recentPrescriptions.removeLast();
+            }
+        }
+
+        synchronized void addRecent(TreatmentRecord treatment) {
+            recentTreatments.addFirst(treatment);
+            if (recentTreatments.size() > RECENT_LIMIT) {
+                recentTreatments.removeLast();
+            }
+        }
+
+        DoctorDashboard snapshot(Doctor doctor, LocalDate day) {
+            Appointment dayStart = timeProbe(day.atStartOfDay());
+            Appointment nextDayStart = timeProbe(day.plusDays(1).atStartOfDay());
+
+            // Earlier days are no longer on any dashboard, so drop them as we go
+            schedule.headSet(dayStart, false).clear();
+            List<Appointment> todaysSchedule = new ArrayList<>(schedule.subSet(dayStart, true, nextDayStart, false));
+
+            synchronized (this) {
+                return new DoctorDashboard(doctor, day, todaysSchedule, doctor.getAssignedPatientCount(),
+                        new ArrayList<>(recentPrescriptions), new ArrayList<>(recentTreatments));
+            }
+        }
+    }
+
+    // An inner class for the doctor dashboard
+    public static class DoctorDashboard {
+        private Doctor doctor;
+        private LocalDate date;
+        private List<Appointment> todaysSchedule;
+        private int panelSize;
+        private List<Prescription> recentPrescriptions;
+        private List<TreatmentRecord> recentTreatments;
+
+        public DoctorDashboard(Doctor doctor, LocalDate date, List<Appointment> todaysSchedule, int panelSize,
+                               List<Prescription> recentPrescriptions, List<TreatmentRecord> recentTreatments) {
+            this.doctor = doctor;
+            this.date = date;
+            this.todaysSchedule = todaysSchedule;
+            this.panelSize = panelSize;
+            this.recentPrescriptions = recentPrescriptions;
+            this.recentTreatments = recentTreatments;
+        }
+
+        public Doctor getDoctor() {
+            return doctor;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public List<Appointment> getTodaysSchedule() {
+            return todaysSchedule;
+        }
+
+        public int getPanelSize() {
+            return panelSize;
+        }
+
+        public List<Prescription> getRecentPrescriptions() {
+            return recentPrescriptions;
+        }
+
+        public List<TreatmentRecord> getRecentTreatments() {
+            return recentTreatments;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n========== DOCTOR DASHBOARD ==========\n");
+            sb.append("Dr. ").append(doctor.getName()).append(" (").append(doctor.getStaffId())
+                    .append(") - ").append(date).append("\n");
+            sb.append("Panel size: ").append(panelSize).append(" patients\n");
+
+            sb.append("\n--- Today's Schedule (").append(todaysSchedule.size()).append(") ---\n");
+            if (todaysSchedule.isEmpty()) {
+                sb.append("No appointments today.\n");
+            } else {
+                for (Appointment apt : todaysSchedule) {
+                    sb.append(apt).append("\n");
+                }
+            }
+
+            sb.append("\n--- Recent Prescriptions ---\n");
+            if (recentPrescriptions.isEmpty()) {
+                sb.append("No prescriptions recorded.\n");
+            } else {
+                for (Prescription rx : recentPrescriptions) {
+                    sb.append(rx).append("\n\n");
+                }
+            }
+
+            sb.append("\n--- Recent Treatments ---\n");
+            if (recentTreatments.isEmpty()) {
+                sb.append("No treatments recorded.\n");
+            } else {
+                for (TreatmentRecord treatment : recentTreatments) {
+                    sb.append(treatment).append("\n\n");
+                }
+            }
+
+            sb.append("======================================\n");
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package service;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Appointment;
+import model.Doctor;
+import model.Staff;
+import repository.StaffRepository;
+import util.IndexedMinHeap;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Keeps every doctor in an indexed min-heap per specialization, per department and per
+// department+specialization pair, for each load metric. Picking the least-loaded doctor is a peek,
+// and a panel or booking change moves the doctor within its heaps in O(log doctors).
+public class DoctorLoadBalancer implements DomainEventListener {
+    public enum LoadMetric {
+        PANEL_SIZE,
+        UPCOMING_APPOINTMENTS
+    }
+
+    private StaffRepository staffRepository;
+    private final Map<String, IndexedMinHeap<String>> heaps; // metric|scope|value -> doctorIds by load
+    private final Map<String, String[]> groupsByDoctor; // doctorId -> the group keys it belongs to (metric-less)
+
+    public DoctorLoadBalancer(StaffRepository staffRepository) {
+        this.staffRepository = staffRepository;
+        this.heaps = new HashMap<>();
+        this.groupsByDoctor = new HashMap<>();
+        for (Staff staff : staffRepository.findAll()) {
+            if (staff instanceof Doctor) {
+                registerDoctor((Doctor) staff);
+            }
+        }
+    }
+
+    // Start balancing load onto a doctor. Panel size is taken from the doctor; upcoming bookings start at 0
+    // and follow the event stream.
+    public synchronized void registerDoctor(Doctor doctor) {
+        String doctorId = doctor.getStaffId();
+        if (groupsByDoctor.containsKey(doctorId)) {
+            return;
+        }
+        String department = normalize(doctor.getDepartment());
+        String specialization = normalize(doctor.getSpecialization());
+        String[] groups = {
+                "SPEC|" + specialization,
+                "DEPT|" + department,
+                "BOTH|" + department + "|" + specialization
+        };
+        groupsByDoctor.put(doctorId, groups);
+
+        int panelSize = doctor.getAssignedPatientIds().size();
+        for (String group : groups) {
+            heap(LoadMetric.PANEL_SIZE, group).put(doctorId, panelSize);
+            heap(LoadMetric.UPCOMING_APPOINTMENTS, group).put(doctorId, 0);
+        }
+    }
+
+    public synchronized void unregisterDoctor(String doctorId) {
+        String[] groups = groupsByDoctor.remove(doctorId);
+        if (groups == null) {
+            return;
+        }
+        for (String group : groups) {
+            for (LoadMetric metric : LoadMetric.values()) {
+                heap(metric, group).remove(doctorId);
+            }
+        }
+    }
+
+    // A patient moved from one doctor's panel to another's. Either ID may be null.
+    public synchronized void onPanelChanged(String fromDoctorId, String toDoctorId) {
+        if (fromDoctorId != null && fromDoctorId.equals(toDoctorId)) {
+            return;
+        }
+        // A doctor seen for the first time is registered with its panel as it stands now, change included
+        if (fromDoctorId != null && !registerIfMissing(fromDoctorId)) {
+            adjust(LoadMetric.PANEL_SIZE, fromDoctorId, -1);
+        }
+        if (toDoctorId != null && !registerIfMissing(toDoctorId)) {
+            adjust(LoadMetric.PANEL_SIZE, toDoctorId, 1);
+        }
+    }
+
+    // Least-loaded doctor within a specialization, a department, or both. Null if the group has no doctors.
+    public synchronized String findLeastLoaded(LoadMetric metric, String department, String specialization) {
+        if (metric == null) {
+            throw new IllegalArgumentException("Load metric cannot be null");
+        }
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        boolean bySpecialization = specialization != null && !specialization.trim().isEmpty();
+        if (!byDepartment && !bySpecialization) {
+            throw new IllegalArgumentException("Department or specialization must be given");
+        }
+
+        String group;
+        if (byDepartment && bySpecialization) {
+            group = "BOTH|" + normalize(department) + "|" + normalize(specialization);
+        } else if (bySpecialization) {
+            group = "SPEC|" + normalize(specialization);
+        } else {
+            group = "DEPT|" + normalize(department);
+        }
+        IndexedMinHeap<String> heap = heaps.get(metric + "|" + group);
+        return heap == null ? null : heap.peek();
+    }
+
+    public synchronized long getLoad(LoadMetric metric, String doctorId) {
+        String[] groups = groupsByDoctor.get(doctorId);
+        if (groups == null) {
+            throw new IllegalArgumentException("Doctor not registered: " + doctorId);
+        }
+        return heap(metric, groups[0]).priorityOf(doctorId);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.APPOINTMENT_SCHEDULED) {
+            onBookingChanged(event.getAppointment().getDoctorId(), 1);
+        } else if (event.getType() == DomainEvent.Type.APPOINTMENT_STATUS_CHANGED
+                && event.getPreviousStatus() == Appointment.AppointmentStatus.SCHEDULED
+                && event.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            onBookingChanged(event.getAppointment().getDoctorId(), -1);
+        }
+    }
+
+    private synchronized void onBookingChanged(String doctorId, int delta) {
+        registerIfMissing(doctorId);
+        adjust(LoadMetric.UPCOMING_APPOINTMENTS, doctorId, delta);
+    }
+
+    // Returns true if the doctor was registered just now
+    private boolean registerIfMissing(String doctorId) {
+        if (groupsByDoctor.containsKey(doctorId)) {
+            return false;
+        }
+        Staff staff = staffRepository.findById(doctorId);
+        if (!(staff instanceof Doctor)) {
+            return false;
+        }
+        registerDoctor((Doctor) staff);
+        return true;
+    }
+
+    private void adjust(LoadMetric metric, String doctorId, int delta) {
+        String[] groups = groupsByDoctor.get(doctorId);
+        if (groups == null) {
+            return;
+        }
+        for (String group : groups) {
+            heap(metric, group).adjust(doctorId, delta);
+        }
+    }
+
+    private IndexedMinHeap<String> heap(LoadMetric metric, String group) {
+        return heaps.computeIfAbsent(metric + "|" + group, key -> new IndexedMinHeap<>());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
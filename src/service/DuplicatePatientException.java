@@ -0,0 +1,28 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+//Thrown when a new patient looks like someone already registered. Nothing has been created; the caller
+//can point staff at the existing record or onboard again with the duplicate check overridden.
+public class DuplicatePatientException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final List<PatientService.PatientMatch> matches;
+
+    public DuplicatePatientException(String name, List<PatientService.PatientMatch> matches) {
+        super("Possible duplicate of " + name + ": " + matches.size() + " existing patient(s) look like the same person,"
+                + " best match " + matches.get(0).getPatient().getPatientId());
+        this.name = name;
+        this.matches = Collections.unmodifiableList(matches);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<PatientService.PatientMatch> getMatches() {
+        return matches;
+    }
+}
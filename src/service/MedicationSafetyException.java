@@ -0,0 +1,34 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+//Thrown when a new prescription duplicates or interacts with something the patient is already taking.
+//The prescriber can review the warnings and resubmit with the override set.
+public class MedicationSafetyException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String patientId;
+    private final String drugName;
+    private final List<String> warnings;
+
+    public MedicationSafetyException(String patientId, String drugName, List<String> warnings) {
+        super("Prescribing " + drugName + " for " + patientId + " raised " + warnings.size()
+                + " safety warning(s): " + String.join("; ", warnings));
+        this.patientId = patientId;
+        this.drugName = drugName;
+        this.warnings = Collections.unmodifiableList(warnings);
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+}
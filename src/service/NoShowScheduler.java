@@ -0,0 +1,117 @@
+package service;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Appointment;
+import util.TimingWheel;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Moves appointments that are still SCHEDULED a grace period after their start time to NO_SHOW.
+// Each appointment gets one timer on a hierarchical timing wheel when it is booked, and the timer is
+// cancelled when the appointment is completed or cancelled, so there is never a scan of the repository.
+public class NoShowScheduler implements DomainEventListener {
+    private static final long DEFAULT_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 64;
+
+    private AppointmentService appointmentService;
+    private final long graceMillis;
+    private final TimingWheel<String> wheel; // appointment IDs keyed by their no-show deadline
+    private final Map<String, TimingWheel.Timeout<String>> pending; // appointmentId -> armed timer
+    private ScheduledExecutorService ticker;
+
+    public NoShowScheduler(AppointmentService appointmentService) {
+        this(appointmentService, DEFAULT_GRACE_MILLIS);
+    }
+
+    public NoShowScheduler(AppointmentService appointmentService, long graceMillis) {
+        if (graceMillis < 0) {
+            throw new IllegalArgumentException("Grace period cannot be negative: " + graceMillis);
+        }
+        this.appointmentService = appointmentService;
+        this.graceMillis = graceMillis;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        this.pending = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.APPOINTMENT_SCHEDULED) {
+            arm(event.getAppointment());
+        } else if (event.getType() == DomainEvent.Type.APPOINTMENT_STATUS_CHANGED
+                && event.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            disarm(event.getAppointment().getAppointmentId());
+        }
+    }
+
+    // Start watching an appointment. Safe to call again for the same appointment.
+    public void arm(Appointment appointment) {
+        long deadline = toEpochMillis(appointment.getDateTime()) + graceMillis;
+        TimingWheel.Timeout<String> timeout = wheel.schedule(appointment.getAppointmentId(), deadline);
+        TimingWheel.Timeout<String> previous = pending.put(appointment.getAppointmentId(), timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    public void disarm(String appointmentId) {
+        TimingWheel.Timeout<String> timeout = pending.remove(appointmentId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    // Mark every appointment whose grace period has run out. Returns how many became NO_SHOW.
+    public int processDue(long nowMillis) {
+        int marked = 0;
+        for (TimingWheel.Timeout<String> timeout : wheel.advance(nowMillis)) {
+            String appointmentId = timeout.getItem();
+            // Only forget the timer that fired: arm() may have replaced it since the wheel let go of its lock
+            pending.remove(appointmentId, timeout);
+            try {
+                if (appointmentService.markNoShow(appointmentId)) {
+                    marked++;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Could not mark appointment " + appointmentId + " as no-show: " + e.getMessage());
+            }
+        }
+        return marked;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // Start the background ticker
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "no-show-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> processDue(System.currentTimeMillis()),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,261 @@
+package service;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Appointment;
+import model.Doctor;
+import model.Prescription;
+import model.Staff;
+import model.TreatmentRecord;
+import repository.AppointmentRespository;
+import repository.PrescriptionRepository;
+import repository.StaffRepository;
+import repository.TreatmentRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Day-bucketed counters for appointments, prescriptions and treatments, keyed by doctor, department and status.
+// Each service write arrives as one domain event and bumps a handful of LongAdders, so writers on different
+// threads rarely contend and every read is a single hash lookup.
+public class OperationalCounters implements DomainEventListener {
+    private StaffRepository staffRepository;
+    private AppointmentRespository appointmentRepository;
+    private PrescriptionRepository prescriptionRepository;
+    private TreatmentRepository treatmentRepository;
+    private final Map<String, LongAdder> counters; // e.g. APT|DOC|S2001|2026-10-20|SCHEDULED -> count
+
+    public OperationalCounters(StaffRepository staffRepository, AppointmentRespository appointmentRepository,
+                               PrescriptionRepository prescriptionRepository,
+                               TreatmentRepository treatmentRepository) {
+        this.staffRepository = staffRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.treatmentRepository = treatmentRepository;
+        this.counters = new ConcurrentHashMap<>();
+    }
+
+    // Recount everything from the repositories. Call at startup, before subscribing and before any writes.
+    public synchronized void rebuild() {
+        counters.clear();
+        for (Appointment appointment : appointmentRepository.findAll()) {
+            countAppointment(appointment, appointment.getStatus(), 1);
+        }
+        for (Prescription prescription : prescriptionRepository.findAll()) {
+            countPrescription(prescription);
+        }
+        for (TreatmentRecord treatment : treatmentRepository.findAll()) {
+            countTreatment(treatment);
+        }
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        switch (event.getType()) {
+            case APPOINTMENT_SCHEDULED:
+                countAppointment(event.getAppointment(), Appointment.AppointmentStatus.SCHEDULED, 1);
+                break;
+            case APPOINTMENT_STATUS_CHANGED:
+                countAppointment(event.getAppointment(), event.getPreviousStatus(), -1);
+                countAppointment(event.getAppointment(), event.getStatus(), 1);
+                break;
+            case PRESCRIPTION_CREATED:
+                countPrescription(event.getPrescription());
+                break;
+            case TREATMENT_RECORDED:
+                countTreatment(event.getTreatment());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Appointments of a doctor on a day in a given status
+    public long getDoctorAppointments(String doctorId, LocalDate day, Appointment.AppointmentStatus status) {
+        return get("APT|DOC|" + doctorId + "|" + day + "|" + status);
+    }
+
+    public long getDepartmentAppointments(String department, LocalDate day, Appointment.AppointmentStatus status) {
+        return get("APT|DEPT|" + normalize(department) + "|" + day + "|" + status);
+    }
+
+    public long getAppointments(LocalDate day, Appointment.AppointmentStatus status) {
+        return get("APT|ALL|" + day + "|" + status);
+    }
+
+    public long getDoctorPrescriptions(String doctorId, LocalDate day) {
+        return get("RX|DOC|" + doctorId + "|" + day);
+    }
+
+    public long getDepartmentPrescriptions(String department, LocalDate day) {
+        return get("RX|DEPT|" + normalize(department) + "|" + day);
+    }
+
+    public long getPrescriptions(LocalDate day) {
+        return get("RX|ALL|" + day);
+    }
+
+    public long getDoctorTreatments(String doctorId, LocalDate day) {
+        return get("TX|DOC|" + doctorId + "|" + day);
+    }
+
+    public long getDepartmentTreatments(String department, LocalDate day) {
+        return get("TX|DEPT|" + normalize(department) + "|" + day);
+    }
+
+    public long getTreatments(LocalDate day) {
+        return get("TX|ALL|" + day);
+    }
+
+    // Treatments of a department in the Monday-to-Sunday week containing the day. Seven lookups.
+    public long getDepartmentTreatmentsInWeek(String department, LocalDate day) {
+        LocalDate monday = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        long total = 0;
+        for (int i = 0; i < 7; i++) {
+            total += getDepartmentTreatments(department, monday.plusDays(i));
+        }
+        return total;
+    }
+
+    // Today's figures for every doctor and department. Costs one lookup per doctor and department.
+    public OperationsSummary getSummary(LocalDate day) {
+        Map<Doctor, Long> scheduledByDoctor = new LinkedHashMap<>();
+        TreeSet<String> departments = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (Staff staff : staffRepository.findByRole("Doctor")) {
+            if (staff instanceof Doctor) {
+                scheduledByDoctor.put((Doctor) staff,
+                        getDoctorAppointments(staff.getStaffId(), day, Appointment.AppointmentStatus.SCHEDULED));
+                departments.add(staff.getDepartment());
+            }
+        }
+        Map<String, Long> treatmentsThisWeek = new LinkedHashMap<>();
+        for (String department : departments) {
+            treatmentsThisWeek.put(department, getDepartmentTreatmentsInWeek(department, day));
+        }
+        return new OperationsSummary(day, scheduledByDoctor, getPrescriptions(day), getTreatments(day),
+                treatmentsThisWeek);
+    }
+
+    private void countAppointment(Appointment appointment, Appointment.AppointmentStatus status, int delta) {
+        if (status == null) {
+            return;
+        }
+        LocalDate day = appointment.getDateTime().toLocalDate();
+        add("APT|DOC|" + appointment.getDoctorId() + "|" + day + "|" + status, delta);
+        add("APT|ALL|" + day + "|" + status, delta);
+        String department = departmentOf(appointment.getDoctorId());
+        if (department != null) {
+            add("APT|DEPT|" + department + "|" + day + "|" + status, delta);
+        }
+    }
+
+    private void countPrescription(Prescription prescription) {
+        LocalDate day = prescription.getPrescribedDate();
+        add("RX|DOC|" + prescription.getPrescribingDoctorId() + "|" + day, 1);
+        add("RX|ALL|" + day, 1);
+        String department = departmentOf(prescription.getPrescribingDoctorId());
+        if (department != null) {
+            add("RX|DEPT|" + department + "|" + day, 1);
+        }
+    }
+
+    private void countTreatment(TreatmentRecord treatment) {
+        LocalDate day = treatment.getDate();
+        add("TX|DOC|" + treatment.getAttendingDoctorId() + "|" + day, 1);
+        add("TX|ALL|" + day, 1);
+        String department = departmentOf(treatment.getAttendingDoctorId());
+        if (department != null) {
+            add("TX|DEPT|" + department + "|" + day, 1);
+        }
+    }
+
+    private String departmentOf(String staffId) {
+        Staff staff = staffRepository.findById(staffId);
+        return staff != null ? normalize(staff.getDepartment()) : null;
+    }
+
+    private void add(String key, int delta) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    private long get(String key) {
+        LongAdder adder = counters.get(key);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private static String normalize(String department) {
+        return department == null ? "" : department.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // An inner class for the operations overview
+    public static class OperationsSummary {
+        private LocalDate date;
+        private Map<Doctor, Long> scheduledByDoctor;
+        private long prescriptions;
+        private long treatments;
+        private Map<String, Long> departmentTreatmentsThisWeek;
+
+        public OperationsSummary(LocalDate date, Map<Doctor, Long> scheduledByDoctor, long prescriptions,
+                                 long treatments, Map<String, Long> departmentTreatmentsThisWeek) {
+            this.date = date;
+            this.scheduledByDoctor = scheduledByDoctor;
+            this.prescriptions = prescriptions;
+            this.treatments = treatments;
+            this.departmentTreatmentsThisWeek = departmentTreatmentsThisWeek;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public Map<Doctor, Long> getScheduledByDoctor() {
+            return scheduledByDoctor;
+        }
+
+        public long getPrescriptions() {
+            return prescriptions;
+        }
+
+        public long getTreatments() {
+            return treatments;
+        }
+
+        public Map<String, Long> getDepartmentTreatmentsThisWeek() {
+            return departmentTreatmentsThisWeek;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n========== OPERATIONS OVERVIEW (").append(date).append(") ==========\n");
+
+            sb.append("\n--- Scheduled Appointments by Doctor ---\n");
+            if (scheduledByDoctor.isEmpty()) {
+                sb.append("No doctors on staff.\n");
+            } else {
+                for (Map.Entry<Doctor, Long> row : scheduledByDoctor.entrySet()) {
+                    sb.append("Dr. ").append(row.getKey().getName()).append(" (").append(row.getKey().getStaffId())
+                            .append("): ").append(row.getValue()).append("\n");
+                }
+            }
+
+            sb.append("\nPrescriptions today: ").append(prescriptions).append("\n");
+            sb.append("Treatments today: ").append(treatments).append("\n");
+
+            sb.append("\n--- Treatments This Week by Department ---\n");
+            for (Map.Entry<String, Long> row : departmentTreatmentsThisWeek.entrySet()) {
+                sb.append(row.getKey()).append(": ").append(row.getValue()).append("\n");
+            }
+
+            sb.append("==================================================\n");
+            return sb.toString();
+        }
+    }
+}
@@ -1,34 +1,57 @@
 package service;
 
+import event.EventBus;
 import model.*;
 import repository.PatientRepository;
 import repository.PrescriptionRepository;
 import repository.StaffRepository;
 import repository.TreatmentRepository;
 import util.IdGenerator;
+import util.NameMatching;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class PatientService {
+    private static final double DUPLICATE_THRESHOLD = 0.90;
+    private static final double AGE_PENALTY_PER_YEAR = 0.02;
+    private static final int MAX_DUPLICATE_CANDIDATES = 5;
+
     private PatientRepository patientRepository;
     private StaffRepository staffRepository;
     private PrescriptionRepository prescriptionRepository;
     private TreatmentRepository treatmentRepository;
     private AuthorizationService authService;
+    private EventBus eventBus;
+    private DoctorLoadBalancer loadBalancer;
 
     public PatientService(PatientRepository patientRepository, StaffRepository staffRepository,
                           PrescriptionRepository prescriptionRepository,
                           TreatmentRepository treatmentRepository,
-                          AuthorizationService authService) {
+                          AuthorizationService authService,
+                          EventBus eventBus,
+                          DoctorLoadBalancer loadBalancer) {
         this.patientRepository = patientRepository;
         this.staffRepository = staffRepository;
         this.prescriptionRepository = prescriptionRepository;
         this.treatmentRepository = treatmentRepository;
         this.authService = authService;
+        this.eventBus = eventBus;
+        this.loadBalancer = loadBalancer;
     }
 
     public Patient onboardPatient(Staff currentStaff, String name, int age, Gender gender)
             throws AuthorizationService.UnauthorizedException {
+        return onboardPatient(currentStaff, name, age, gender, false);
+    }
+
+    // Onboard a patient. If an existing patient looks like the same person, DuplicatePatientException
+    // lists them and nothing is created, unless the caller has confirmed this is someone new.
+    public Patient onboardPatient(Staff currentStaff, String name, int age, Gender gender,
+                                  boolean allowPossibleDuplicate)
+            throws AuthorizationService.UnauthorizedException {
         // Authorization check
         authService.requirePermission(currentStaff, "ONBOARD_PATIENT");
 
@@ -43,6 +66,13 @@ public class PatientService {
             throw new IllegalArgumentException("Gender cannot be null");
         }
 
+        if (!allowPossibleDuplicate) {
+            List<PatientMatch> matches = findPossibleDuplicates(name, age, gender);
+            if (!matches.isEmpty()) {
+                throw new DuplicatePatientException(name.trim(), matches);
+            }
+        }
+
         // Generate IDs
         String personId = "PER-" + IdGenerator.generatePatientId();
         String patientId = IdGenerator.generatePatientId();
@@ -58,9 +88,48 @@ public class PatientService {
         return patient;
     }
 
+    // Existing patients likely to be this person, best match first. Only the records sharing a blocking
+    // key are scored: same gender, similar age and names that sound the same.
+    public List<PatientMatch> findPossibleDuplicates(String name, int age, Gender gender) {
+        String typed = String.join(" ", NameMatching.nameTokens(name));
+        String sorted = NameMatching.normalize(name);
+
+        List<PatientMatch> matches = new ArrayList<>();
+        for (Patient candidate : patientRepository.findMatchCandidates(name, age, gender)) {
+            int ageDifference = Math.abs(candidate.getAge() - age);
+            // Comparing sorted tokens as well catches first and last name entered the other way round
+            double nameScore = NameMatching.jaroWinkler(typed, String.join(" ",
+                    NameMatching.nameTokens(candidate.getName())));
+            if (nameScore < 1.0) {
+                nameScore = Math.max(nameScore, NameMatching.jaroWinkler(sorted,
+                        NameMatching.normalize(candidate.getName())));
+            }
+            double score = nameScore - AGE_PENALTY_PER_YEAR * ageDifference;
+            if (score >= DUPLICATE_THRESHOLD) {
+                matches.add(new PatientMatch(candidate, score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(PatientMatch::getScore).reversed()
+                .thenComparing(match -> match.getPatient().getPatientId()));
+        return matches.size() > MAX_DUPLICATE_CANDIDATES
+                ? new ArrayList<>(matches.subList(0, MAX_DUPLICATE_CANDIDATES)) : matches;
+    }
+
     // Assign patient to a doctor. Doctor must exist and must be a doctor.
     public boolean assignPatientToDoctor(Staff currentStaff, String patientId, String doctorId)
             throws AuthorizationService.UnauthorizedException {
+        return assign(currentStaff, patientId, doctorId, null);
+    }
+
+    // Same, but only if nobody changed the patient since the caller read expectedVersion.
+    // Otherwise a VersionConflictException is thrown and nothing changes.
+    public boolean assignPatientToDoctor(Staff currentStaff, String patientId, String doctorId, long expectedVersion)
+            throws AuthorizationService.UnauthorizedException {
+        return assign(currentStaff, patientId, doctorId, expectedVersion);
+    }
+
+    private boolean assign(Staff currentStaff, String patientId, String doctorId, Long expectedVersion)
+            throws AuthorizationService.UnauthorizedException {
         authService.requirePermission(currentStaff, "VIEW_HISTORY");
 
         // Validate patient exists
@@ -79,26 +148,60 @@ public class PatientService {
             throw new IllegalArgumentException("Staff member " + doctorId + " is not a doctor. Role: " + staff.getRole());
         }
 
-        Doctor doctor = (Doctor) staff;
+        // Only the patient write is version-checked. The doctor being replaced is read inside that write,
+        // so the panels below always follow the assignment that actually happened.
+        String[] previous = new String[1];
+        Consumer<Patient> change = p -> {
+            previous[0] = p.getAssignedDoctorId();
+            p.assignDoctor(doctorId);
+        };
+        boolean updated = expectedVersion != null
+                ? patientRepository.updatePatient(patientId, expectedVersion, change)
+                : patientRepository.updatePatient(patientId, change);
+        if (!updated) {
+            throw new IllegalArgumentException("Patient not found: " + patientId);
+        }
 
-        // Remove from old doctor if assigned
-        if (patient.getAssignedDoctorId() != null) {
-            Staff oldStaff = staffRepository.findById(patient.getAssignedDoctorId());
-            if (oldStaff instanceof Doctor) {
-                ((Doctor) oldStaff).removePatient(patientId);
-                staffRepository.updateStaff(oldStaff);
-            }
+        String oldDoctorId = previous[0];
+        boolean hadDoctor = oldDoctorId != null && staffRepository.findById(oldDoctorId) instanceof Doctor;
+        if (hadDoctor && !oldDoctorId.equals(doctorId)) {
+            syncPanel(oldDoctorId, patientId);
         }
+        syncPanel(doctorId, patientId);
 
-        // Assign patient to a new Doctor
-        patient.assignDoctor(doctorId);
-        doctor.assignPatient(patientId);
+        loadBalancer.onPanelChanged(hadDoctor ? oldDoctorId : null, doctorId);
+        eventBus.publishPatientAssigned(patient, oldDoctorId, doctorId);
+        return true;
+    }
 
-        // Update both in repositories
-        patientRepository.updatePatient(patient);
-        staffRepository.updateStaff(doctor);
+    // Make a doctor's panel agree with the patient's current assignment. This is not version-checked, so
+    // assignments of other patients to the same doctor never conflict with it. Reading the assignment under
+    // the doctor's lock means racing reassignments of one patient still leave every panel right.
+    private void syncPanel(String doctorId, String patientId) {
+        staffRepository.updateStaff(doctorId, s -> {
+            Patient current = patientRepository.findById(patientId);
+            if (current != null && doctorId.equals(current.getAssignedDoctorId())) {
+                ((Doctor) s).assignPatient(patientId);
+            } else {
+                ((Doctor) s).removePatient(patientId);
+            }
+        });
+    }
 
-        return true;
+    // Assign a patient to the least-loaded doctor of a department and/or specialization.
+    // Two concurrent auto-assignments may pick the same doctor; the heaps keep the spread close to even.
+    public Doctor autoAssignPatient(Staff currentStaff, String patientId, String department,
+                                    String specialization, DoctorLoadBalancer.LoadMetric metric)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        String doctorId = loadBalancer.findLeastLoaded(metric, department, specialization);
+        if (doctorId == null) {
+            throw new IllegalStateException("No doctors found for department '" + department
+                    + "' / specialization '" + specialization + "'");
+        }
+        assignPatientToDoctor(currentStaff, patientId, doctorId);
+        return (Doctor) staffRepository.findById(doctorId);
     }
 
     // Add medical history entry for patient
@@ -110,13 +213,36 @@ public class PatientService {
             throw new IllegalArgumentException("History entry cannot be empty");
         }
 
-        Patient patient = patientRepository.findById(patientId);
-        if (patient == null) {
-            throw new IllegalArgumentException("Patient not found: " + patientId);
+        addHistory(patientId, historyEntry, null);
+    }
+
+    // Same, but only if nobody changed the patient since the caller read expectedVersion.
+    // Otherwise a VersionConflictException is thrown and nothing is added.
+    public void addMedicalHistory(Staff currentStaff, String patientId, String historyEntry, long expectedVersion)
+            throws AuthorizationService.UnauthorizedException {
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (historyEntry == null || historyEntry.trim().isEmpty()) {
+            throw new IllegalArgumentException("History entry cannot be empty");
         }
+        addHistory(patientId, historyEntry, expectedVersion);
+    }
 
-        patient.addMedicalHistory(historyEntry);
-        patientRepository.updatePatient(patient);
+    private void addHistory(String patientId, String historyEntry, Long expectedVersion) {
+        Patient[] patient = new Patient[1];
+        int[] entryIndex = new int[1];
+        Consumer<Patient> change = p -> {
+            p.addMedicalHistory(historyEntry);
+            patient[0] = p;
+            entryIndex[0] = p.getMedicalHistoryCount() - 1;
+        };
+        boolean updated = expectedVersion != null
+                ? patientRepository.updatePatient(patientId, expectedVersion, change)
+                : patientRepository.updatePatient(patientId, change);
+        if (!updated) {
+            throw new IllegalArgumentException("Patient not found: " + patientId);
+        }
+        eventBus.publishMedicalHistoryAdded(patient[0], historyEntry, entryIndex[0]);
     }
 
     // Get complete patient history. Data from multiple sources
@@ -168,6 +294,31 @@ public class PatientService {
         return patientRepository.count();
     }
 
+    // An existing patient that may be the same person as a new registration
+    public static class PatientMatch {
+        private Patient patient;
+        private double score;
+
+        public PatientMatch(Patient patient, double score) {
+            this.patient = patient;
+            this.score = score;
+        }
+
+        public Patient getPatient() {
+            return patient;
+        }
+
+        // 1.0 is an exact name and age match
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f  %s", score, patient.getDisplayInfo());
+        }
+    }
+
     // An inner class for the patient history report
     public static class PatientHistoryReport {
         private Patient patient;
@@ -1,29 +1,42 @@
 package service;
 
+import event.EventBus;
+import model.DrugInteraction;
 import model.Patient;
 import model.Prescription;
 import model.Staff;
+import model.Vocabulary;
+import repository.DrugInteractionRepository;
 import repository.PatientRepository;
 import repository.PrescriptionRepository;
 import repository.StaffRepository;
 import util.IdGenerator;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class PrescriptionService {
     private PrescriptionRepository prescriptionRepository;
     private PatientRepository patientRepository;
     private StaffRepository staffRepository;
+    private DrugInteractionRepository interactionRepository;
     private AuthorizationService authService;
+    private EventBus eventBus;
 
     public PrescriptionService(PrescriptionRepository prescriptionRepository,
                                PatientRepository patientRepository,
                                StaffRepository staffRepository,
-                               AuthorizationService authService) {
+                               DrugInteractionRepository interactionRepository,
+                               AuthorizationService authService,
+                               EventBus eventBus) {
         this.prescriptionRepository = prescriptionRepository;
         this.patientRepository = patientRepository;
         this.staffRepository = staffRepository;
+        this.interactionRepository = interactionRepository;
         this.authService = authService;
+        this.eventBus = eventBus;
     }
 
     // Create a new prescription. Only doctors can prescribe medication.
@@ -31,6 +44,15 @@ public class PrescriptionService {
                                            String drugName, String dosage,
                                            int durationDays)
             throws AuthorizationService.UnauthorizedException {
+        return createPrescription(currentStaff, patientId, drugName, dosage, durationDays, false);
+    }
+
+    // Create a new prescription. Duplicate therapy or a known interaction with anything the patient
+    // takes during the new course raises MedicationSafetyException unless the prescriber overrides it.
+    public Prescription createPrescription(Staff currentStaff, String patientId,
+                                           String drugName, String dosage,
+                                           int durationDays, boolean overrideWarnings)
+            throws AuthorizationService.UnauthorizedException {
 
         // CRITICAL: Only doctors can prescribe
         authService.requirePermission(currentStaff, "PRESCRIBE");
@@ -55,6 +77,13 @@ public class PrescriptionService {
             throw new IllegalArgumentException("Duration cannot exceed 365 days. Provided: " + durationDays);
         }
 
+        if (!overrideWarnings) {
+            List<String> warnings = checkMedicationSafety(patientId, drugName, durationDays);
+            if (!warnings.isEmpty()) {
+                throw new MedicationSafetyException(patientId, drugName.trim(), warnings);
+            }
+        }
+
         // Create prescription
         String prescriptionId = IdGenerator.generatePrescriptionId();
         Prescription prescription = new Prescription(
@@ -68,12 +97,42 @@ public class PrescriptionService {
         }
 
         // Add to patient's record
-        patient.addPrescription(prescriptionId);
-        patientRepository.updatePatient(patient);
+        patientRepository.updatePatient(patientId, p -> p.addPrescription(prescriptionId));
 
+        eventBus.publishPrescriptionCreated(prescription);
         return prescription;
     }
 
+    // Compare the new drug against every course that overlaps the one being prescribed.
+    // Only the patient's overlapping courses are visited, never their whole history.
+    private List<String> checkMedicationSafety(String patientId, String drugName, int durationDays) {
+        LocalDate start = LocalDate.now();
+        List<Prescription> active = prescriptionRepository.findActiveBetween(
+                patientId, start, start.plusDays(durationDays));
+
+        List<String> warnings = new ArrayList<>();
+        int drugGroup = Vocabulary.DRUG.findGroup(drugName);
+        for (Prescription current : active) {
+            int otherGroup = Vocabulary.DRUG.groupOf(current.getDrugCode());
+            if (otherGroup == drugGroup) {
+                warnings.add("Duplicate therapy: already taking " + current.getDrugName().trim() + " ("
+                        + current.getDosage() + ") under " + current.getPrescriptionId()
+                        + " until " + lastDay(current));
+                continue;
+            }
+            DrugInteraction interaction = interactionRepository.findInteraction(drugGroup, otherGroup);
+            if (interaction != null) {
+                warnings.add(interaction.getSeverity() + " interaction with " + current.getDrugName().trim()
+                        + " (" + current.getPrescriptionId() + "): " + interaction.getDescription());
+            }
+        }
+        return warnings;
+    }
+
+    private static LocalDate lastDay(Prescription prescription) {
+        return prescription.getPrescribedDate().plusDays(prescription.getDurationDays() - 1);
+    }
+
     // Get all prescriptions for a patient
     public List<Prescription> getPatientPrescriptions(Staff currentStaff, String patientId)
             throws AuthorizationService.UnauthorizedException {
@@ -113,6 +172,33 @@ public class PrescriptionService {
         return prescriptionRepository.findByDrugName(drugName);
     }
 
+    // Every course of a drug that was running at some point between two dates, both inclusive,
+    // ordered by patient so a recall or adverse-event review can work through it patient by patient
+    public List<Prescription> findCoursesOnDrug(Staff currentStaff, String drugName,
+                                                LocalDate from, LocalDate to)
+            throws AuthorizationService.UnauthorizedException {
+
+        authService.requirePermission(currentStaff, "VIEW_HISTORY");
+
+        if (drugName == null || drugName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Drug name cannot be empty");
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both dates are required");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("End date " + to + " is before start date " + from);
+        }
+
+        List<Prescription> courses = from.equals(to)
+                ? prescriptionRepository.findDrugActiveOn(drugName, from)
+                : prescriptionRepository.findDrugActiveBetween(drugName, from, to.plusDays(1));
+        courses.sort(Comparator.comparing(Prescription::getPatientId)
+                .thenComparing(Prescription::getPrescribedDate)
+                .thenComparing(Prescription::getPrescriptionId));
+        return courses;
+    }
+
     // Find prescription by ID
     public Prescription findPrescriptionById(String prescriptionId) {
         if (prescriptionId == null || prescriptionId.trim().isEmpty()) {
@@ -0,0 +1,200 @@
+package service;
+
+import event.DomainEvent;
+import event.DomainEventListener;
+import model.Appointment;
+import notification.Reminder;
+import notification.ReminderSink;
+import util.TimingWheel;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sends patients reminders a fixed time before each scheduled appointment.
+// Every lead time of a booking is one timer on a hierarchical timing wheel, armed from the event stream
+// and cancelled when the appointment leaves SCHEDULED, so nothing ever rescans the repository.
+// A reschedule arrives as a cancellation plus a new booking and is handled the same way.
+public class ReminderService implements DomainEventListener {
+    private static final long[] DEFAULT_LEAD_MINUTES = {24 * 60, 2 * 60};
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 64;
+
+    private final ReminderSink sink;
+    private final long[] leadMinutes;
+    private final long lastLeadMinutes; // the shortest lead, i.e. the final reminder of an appointment
+    private final int batchSize;
+    private final TimingWheel<PendingReminder> wheel;
+    private final Map<String, List<TimingWheel.Timeout<PendingReminder>>> pending; // appointmentId -> armed timers
+    private long deliveredCount;
+    private long failedCount;
+    private ScheduledExecutorService ticker;
+
+    public ReminderService(ReminderSink sink) {
+        this(sink, DEFAULT_LEAD_MINUTES, DEFAULT_BATCH_SIZE);
+    }
+
+    public ReminderService(ReminderSink sink, long[] leadMinutes, int batchSize) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Reminder sink cannot be null");
+        }
+        if (leadMinutes == null || leadMinutes.length == 0) {
+            throw new IllegalArgumentException("At least one reminder lead time is required");
+        }
+        for (long lead : leadMinutes) {
+            if (lead <= 0) {
+                throw new IllegalArgumentException("Lead time must be positive: " + lead);
+            }
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.sink = sink;
+        this.leadMinutes = leadMinutes.clone();
+        long shortest = Long.MAX_VALUE;
+        for (long lead : leadMinutes) {
+            shortest = Math.min(shortest, lead);
+        }
+        this.lastLeadMinutes = shortest;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        this.pending = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.getType() == DomainEvent.Type.APPOINTMENT_SCHEDULED) {
+            arm(event.getAppointment(), System.currentTimeMillis());
+        } else if (event.getType() == DomainEvent.Type.APPOINTMENT_STATUS_CHANGED
+                && event.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            disarm(event.getAppointment().getAppointmentId());
+        }
+    }
+
+    // Arm every reminder of an appointment that is still ahead of us. Safe to call again for the same appointment.
+    public void arm(Appointment appointment, long nowMillis) {
+        long startMillis = toEpochMillis(appointment.getDateTime());
+        List<TimingWheel.Timeout<PendingReminder>> timers = new ArrayList<>(leadMinutes.length);
+        for (long lead : leadMinutes) {
+            long dueMillis = startMillis - TimeUnit.MINUTES.toMillis(lead);
+            if (dueMillis <= nowMillis) {
+                continue; // booked inside this window, too late for this reminder
+            }
+            timers.add(wheel.schedule(new PendingReminder(appointment, lead), dueMillis));
+        }
+
+        List<TimingWheel.Timeout<PendingReminder>> previous = timers.isEmpty()
+                ? pending.remove(appointment.getAppointmentId())
+                : pending.put(appointment.getAppointmentId(), timers);
+        cancelAll(previous);
+    }
+
+    public void disarm(String appointmentId) {
+        cancelAll(pending.remove(appointmentId));
+    }
+
+    // Hand every due reminder to the sink in batches. Returns how many were delivered.
+    public int processDue(long nowMillis) {
+        List<TimingWheel.Timeout<PendingReminder>> due = wheel.advance(nowMillis);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        List<Reminder> ready = new ArrayList<>(due.size());
+        for (TimingWheel.Timeout<PendingReminder> timeout : due) {
+            PendingReminder reminder = timeout.getItem();
+            Appointment appointment = reminder.appointment;
+            if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+                continue;
+            }
+            ready.add(new Reminder(appointment.getAppointmentId(), appointment.getPatientId(),
+                    appointment.getDoctorId(), appointment.getDateTime(), reminder.leadMinutes));
+            if (reminder.leadMinutes == lastLeadMinutes) {
+                // Only forget the timers this one belongs to: arm() may have replaced them since the wheel fired
+                pending.computeIfPresent(appointment.getAppointmentId(),
+                        (id, timers) -> timers.contains(timeout) ? null : timers);
+            }
+        }
+
+        int delivered = 0;
+        for (int from = 0; from < ready.size(); from += batchSize) {
+            List<Reminder> batch = ready.subList(from, Math.min(from + batchSize, ready.size()));
+            try {
+                sink.deliver(batch);
+                delivered += batch.size();
+            } catch (Exception e) {
+                synchronized (this) {
+                    failedCount += batch.size();
+                }
+                System.err.println("Could not deliver " + batch.size() + " reminders: " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            deliveredCount += delivered;
+        }
+        return delivered;
+    }
+
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    public synchronized long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    // Start the background ticker
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> processDue(System.currentTimeMillis()),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    private static void cancelAll(List<TimingWheel.Timeout<PendingReminder>> timers) {
+        if (timers == null) {
+            return;
+        }
+        for (TimingWheel.Timeout<PendingReminder> timer : timers) {
+            timer.cancel();
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static class PendingReminder {
+        private final Appointment appointment;
+        private final long leadMinutes;
+
+        PendingReminder(Appointment appointment, long leadMinutes) {
+            this.appointment = appointment;
+            this.leadMinutes = leadMinutes;
+        }
+    }
+}
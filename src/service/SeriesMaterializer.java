@@ -0,0 +1,48 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the materialization horizon of recurring series moving: once an hour, every visit that has come
+// within range is turned into an ordinary appointment. Visits already materialized are skipped in O(1).
+public class SeriesMaterializer {
+    private static final long PERIOD_MINUTES = 60;
+
+    private AppointmentService appointmentService;
+    private ScheduledExecutorService ticker;
+
+    public SeriesMaterializer(AppointmentService appointmentService) {
+        this.appointmentService = appointmentService;
+    }
+
+    public int runOnce() {
+        try {
+            return appointmentService.materializeDueOccurrences(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            System.err.println("Could not materialize recurring visits: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Start the background ticker. The first run happens straight away.
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "series-materializer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::runOnce, 0, PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+}
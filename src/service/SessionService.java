@@ -0,0 +1,181 @@
+package service;
+
+import model.Staff;
+import repository.StaffRepository;
+import util.TimingWheel;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SessionService {
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 64;
+
+    private final StaffRepository staffRepository;
+    private final Map<String, Session> sessions; //token -> session. A lookup is a single hash probe.
+    private final TimingWheel<Session> expiryWheel;
+    private final long idleTimeoutMillis;
+    private final SecureRandom random;
+    private ScheduledExecutorService ticker;
+
+    public SessionService(StaffRepository staffRepository) {
+        this(staffRepository, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public SessionService(StaffRepository staffRepository, long idleTimeoutMillis) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeoutMillis);
+        }
+        this.staffRepository = staffRepository;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.sessions = new ConcurrentHashMap<>();
+        this.expiryWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        this.random = new SecureRandom();
+    }
+
+    // Open a session for a staff member and return its token
+    public String login(String staffId) {
+        if (staffId == null || staffId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Staff ID cannot be empty");
+        }
+        Staff staff = staffRepository.findById(staffId);
+        if (staff == null) {
+            throw new IllegalArgumentException("Staff not found: " + staffId);
+        }
+
+        long now = System.currentTimeMillis();
+        Session session = new Session(generateToken(), staff, now);
+        sessions.put(session.token, session);
+        session.expiry = expiryWheel.schedule(session, now + idleTimeoutMillis);
+        return session.token;
+    }
+
+    // Resolve a token to its staff member, or null if the session is unknown or idle too long.
+    // Touching the session only updates a timestamp; the expiry timer is re-armed lazily when it fires.
+    public Staff resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastAccessMillis >= idleTimeoutMillis) {
+            invalidate(session);
+            return null;
+        }
+        session.lastAccessMillis = now;
+        return session.staff;
+    }
+
+    public boolean logout(String token) {
+        if (token == null) {
+            return false;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return false;
+        }
+        invalidate(session);
+        return true;
+    }
+
+    // Drop every session that has been idle past the timeout. Returns how many were expired.
+    public int expireIdleSessions(long nowMillis) {
+        int expired = 0;
+        for (TimingWheel.Timeout<Session> timeout : expiryWheel.advance(nowMillis)) {
+            Session session = timeout.getItem();
+            if (sessions.get(session.token) != session) {
+                continue;
+            }
+            long deadline = session.lastAccessMillis + idleTimeoutMillis;
+            if (deadline <= nowMillis) {
+                invalidate(session);
+                expired++;
+            } else {
+                // Used since the timer was armed, so push it out to the new deadline
+                session.expiry = expiryWheel.schedule(session, deadline);
+            }
+        }
+        return expired;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    // Start the background ticker that drives idle expiry
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> expireIdleSessions(System.currentTimeMillis()),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    private void invalidate(Session session) {
+        if (sessions.remove(session.token, session)) {
+            TimingWheel.Timeout<Session> expiry = session.expiry;
+            if (expiry != null) {
+                expiry.cancel();
+            }
+        }
+    }
+
+    private String generateToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // A logged-in staff member
+    public static class Session {
+        private final String token;
+        private final Staff staff;
+        private final long createdAtMillis;
+        private volatile long lastAccessMillis;
+        private volatile TimingWheel.Timeout<Session> expiry;
+
+        private Session(String token, Staff staff, long createdAtMillis) {
+            this.token = token;
+            this.staff = staff;
+            this.createdAtMillis = createdAtMillis;
+            this.lastAccessMillis = createdAtMillis;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Staff getStaff() {
+            return staff;
+        }
+
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+
+        public long getLastAccessMillis() {
+            return lastAccessMillis;
+        }
+    }
+}
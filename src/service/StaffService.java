@@ -10,10 +10,13 @@ import java.util.List;
 public class StaffService {
     private StaffRepository staffRepository;
     private AuthorizationService authService;
+    private DoctorLoadBalancer loadBalancer;
 
-    public StaffService(StaffRepository staffRepository, AuthorizationService authService) {
+    public StaffService(StaffRepository staffRepository, AuthorizationService authService,
+                        DoctorLoadBalancer loadBalancer) {
         this.staffRepository = staffRepository;
         this.authService = authService;
+        this.loadBalancer = loadBalancer;
     }
 
     //Onboard a new doctor. Only the admin can do this
@@ -31,6 +34,7 @@ public class StaffService {
         if(!staffRepository.addStaff(doctor)){
             throw new IllegalStateException("Failed to add doctor - duplicate ID");
         }
+        loadBalancer.registerDoctor(doctor);
 
         return doctor;
     }
@@ -1,5 +1,6 @@
 package service;
 
+import event.EventBus;
 import model.Patient;
 import model.Staff;
 import model.TreatmentRecord;
@@ -16,15 +17,18 @@ public class TreatmentService {
     private PatientRepository patientRepository;
     private StaffRepository staffRepository;
     private AuthorizationService authService;
+    private EventBus eventBus;
 
     public TreatmentService(TreatmentRepository treatmentRepository,
                             PatientRepository patientRepository,
                             StaffRepository staffRepository,
-                            AuthorizationService authService) {
+                            AuthorizationService authService,
+                            EventBus eventBus) {
         this.treatmentRepository = treatmentRepository;
         this.patientRepository = patientRepository;
         this.staffRepository = staffRepository;
         this.authService = authService;
+        this.eventBus = eventBus;
     }
 
     // Record a new treatment. Done by doctors after appointments
@@ -64,9 +68,9 @@ public class TreatmentService {
         }
 
         // Add to patient's history
-        patient.addTreatment(treatmentId);
-        patientRepository.updatePatient(patient);
+        patientRepository.updatePatient(patientId, p -> p.addTreatment(treatmentId));
 
+        eventBus.publishTreatmentRecorded(treatment);
         return treatment;
     }
 
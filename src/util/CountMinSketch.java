@@ -0,0 +1,75 @@
+package util;
+
+import java.util.Arrays;
+
+//Count-min sketch: approximate frequency counts in fixed memory. Estimates never undercount, and with
+//width w and depth d they overcount by more than 2N/w with probability at most 2^-d (N = total added).
+//Not thread-safe; the owner guards it.
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final int[][] counts;
+    private long total;
+
+    //Width is rounded up to a power of two so a column is a mask, not a division
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        int rounded = 1;
+        while (rounded < width) {
+            rounded <<= 1;
+        }
+        this.width = rounded;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.counts = new int[depth][this.width];
+    }
+
+    public void add(long hash, int count) {
+        for (int row = 0; row < depth; row++) {
+            counts[row][column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    public int estimate(long hash) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][column(hash, row)]);
+        }
+        return min;
+    }
+
+    //Count in one cell, for callers that combine several sketches row by row
+    public int cell(long hash, int row) {
+        return counts[row][column(hash, row)];
+    }
+
+    public void clear() {
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    //Row i uses h1 + i*h2 (Kirsch-Mitzenmacher), so one 64-bit hash feeds every row
+    private int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + row * h2) & mask;
+    }
+}
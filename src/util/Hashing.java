@@ -0,0 +1,27 @@
+package util;
+
+//Small, fast non-cryptographic hashes for the sketches. Not for anything security related.
+public final class Hashing {
+    private Hashing() {
+    }
+
+    //64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer so every bit is well spread
+    public static long hash64(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix64(hash);
+    }
+
+    //MurmurHash3 fmix64 finalizer
+    public static long mix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,131 @@
+package util;
+
+import java.util.Arrays;
+
+//Estimates how many distinct items were added, in fixed memory: 2^precision one-byte registers, 4 KB at the
+//default precision of 12. The relative standard error is 1.04 / sqrt(2^precision), about 1.6% at p=12, so
+//roughly 95% of estimates land within 3.3% of the true count; small counts are close to exact.
+//Two sketches of the same precision merge into the sketch of the union.
+//Callers pass 64-bit hashes, e.g. from Hashing.hash64. Not thread-safe; the owner guards it.
+public class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(HyperLogLog source) {
+        this.precision = source.precision;
+        this.registers = source.registers.clone();
+    }
+
+    //The top bits pick a register, which keeps the longest run of leading zeros seen in the remaining bits
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        //The guard bit caps the rank, so an all-zero remainder still gives a finite value
+        long remainder = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remainder) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    //Fold another sketch in, leaving this one as the sketch of both streams together
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision
+                    + " and " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(this);
+    }
+
+    //Ertl's improved estimator ("New cardinality estimation algorithms for HyperLogLog sketches", 2017).
+    //Unlike the original estimator it needs no switch to linear counting and no bias tables, and stays
+    //unbiased across the whole range, including the small counts where the original one drifts.
+    public long estimate() {
+        int q = 64 - precision;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        int m = registers.length;
+        if (histogram[0] == m) {
+            return 0;
+        }
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+        return Math.round(m / (2 * Math.log(2)) * m / z);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public double getRelativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    private static double sigma(double x) {
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+}
@@ -8,6 +8,8 @@ public class IdGenerator {
     private static final AtomicInteger appointmentCounter = new AtomicInteger(3000);
     private static final AtomicInteger treatmentCounter = new AtomicInteger(4000);
     private static final AtomicInteger prescriptionCounter = new AtomicInteger(5000);
+    private static final AtomicInteger seriesCounter = new AtomicInteger(6000);
+    private static final AtomicInteger waitlistCounter = new AtomicInteger(7000);
 
     public static String generatePatientId(){
         return "P" + patientCounter.incrementAndGet();
@@ -28,4 +30,12 @@ public class IdGenerator {
     public static String generatePrescriptionId(){
         return "Rx" + prescriptionCounter.incrementAndGet();
     }
+
+    public static String generateSeriesId(){
+        return "SR" + seriesCounter.incrementAndGet();
+    }
+
+    public static String generateWaitlistId(){
+        return "WL" + waitlistCounter.incrementAndGet();
+    }
 }
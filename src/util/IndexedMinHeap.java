@@ -0,0 +1,179 @@
+package util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+//Binary min-heap of keys with long priorities that also knows where every key sits,
+//so a key's priority can be changed or the key removed in O(log n) instead of O(n).
+//Equal priorities are ordered by insertion, so the longest-standing key wins a tie.
+//Not thread-safe; the owner guards it.
+public class IndexedMinHeap<K> {
+    private Object[] keys;
+    private long[] priorities;
+    private long[] insertionOrder;
+    private final Map<K, Integer> positions; //key -> index in the heap arrays
+    private int size;
+    private long nextInsertion;
+
+    public IndexedMinHeap() {
+        this(16);
+    }
+
+    public IndexedMinHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.keys = new Object[capacity];
+        this.priorities = new long[capacity];
+        this.insertionOrder = new long[capacity];
+        this.positions = new HashMap<>();
+    }
+
+    //Insert a key, or move it to a new priority if it is already in the heap
+    public void put(K key, long priority) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Integer index = positions.get(key);
+        if (index != null) {
+            reprioritize(index, priority);
+            return;
+        }
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            insertionOrder = Arrays.copyOf(insertionOrder, capacity);
+        }
+        keys[size] = key;
+        priorities[size] = priority;
+        insertionOrder[size] = nextInsertion++;
+        positions.put(key, size);
+        siftUp(size++);
+    }
+
+    //Add delta to a key's priority. Returns false if the key is not in the heap.
+    public boolean adjust(K key, long delta) {
+        Integer index = positions.get(key);
+        if (index == null) {
+            return false;
+        }
+        reprioritize(index, priorities[index] + delta);
+        return true;
+    }
+
+    public boolean remove(K key) {
+        Integer index = positions.remove(key);
+        if (index == null) {
+            return false;
+        }
+        int last = --size;
+        if (index != last) {
+            move(last, index);
+            keys[last] = null;
+            siftDown(index);
+            siftUp(index);
+        } else {
+            keys[last] = null;
+        }
+        return true;
+    }
+
+    //Key with the smallest priority, or null if empty
+    @SuppressWarnings("unchecked")
+    public K peek() {
+        return size == 0 ? null : (K) keys[0];
+    }
+
+    public long peekPriority() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return priorities[0];
+    }
+
+    public Long priorityOf(K key) {
+        Integer index = positions.get(key);
+        return index == null ? null : priorities[index];
+    }
+
+    public boolean contains(K key) {
+        return positions.containsKey(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void reprioritize(int index, long priority) {
+        long old = priorities[index];
+        priorities[index] = priority;
+        if (priority < old) {
+            siftUp(index);
+        } else if (priority > old) {
+            siftDown(index);
+        }
+    }
+
+    private boolean less(int a, int b) {
+        if (priorities[a] != priorities[b]) {
+            return priorities[a] < priorities[b];
+        }
+        return insertionOrder[a] < insertionOrder[b];
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(index, parent)) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && less(left + 1, left) ? left + 1 : left;
+            if (!less(smallest, index)) {
+                break;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Object key = keys[a];
+        long priority = priorities[a];
+        long order = insertionOrder[a];
+        keys[a] = keys[b];
+        priorities[a] = priorities[b];
+        insertionOrder[a] = insertionOrder[b];
+        keys[b] = key;
+        priorities[b] = priority;
+        insertionOrder[b] = order;
+        updatePosition(a);
+        updatePosition(b);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        priorities[to] = priorities[from];
+        insertionOrder[to] = insertionOrder[from];
+        updatePosition(to);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updatePosition(int index) {
+        positions.put((K) keys[index], index);
+    }
+}
@@ -0,0 +1,260 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+//Half-open intervals [start, end) over long coordinates, in a centered interval tree. Each node has a center
+//point and holds the intervals that contain it but no center above it, sorted both by start and by end, so a
+//stabbing query walks one root-to-leaf path and at each node reads only the intervals it reports.
+//The centers form a treap, so the path is O(log n) expected and a stab costs O(log n + k) for k matches.
+//An overlap query [from, to) is a stab at 'from' plus the intervals starting in (from, to), read from a
+//separate start-ordered index, so it is O(log n + k) as well, however long or uneven the intervals are.
+//Not thread-safe; the owner guards it.
+public class IntervalTree<T> {
+    private static final Comparator<Interval<?>> BY_START =
+            Comparator.<Interval<?>>comparingLong(interval -> interval.start).thenComparingLong(interval -> interval.id);
+    //Latest end first
+    private static final Comparator<Interval<?>> BY_END_DESCENDING =
+            Comparator.<Interval<?>>comparingLong(interval -> -interval.end).thenComparingLong(interval -> interval.id);
+
+    private final NavigableSet<Interval<T>> byStart = new TreeSet<>(BY_START); //every interval, for range scans
+    private Node<T> root;
+    private long nextId;
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    public void insert(long start, long end, T value) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after its start: [" + start + ", " + end + ")");
+        }
+        Interval<T> interval = new Interval<>(start, end, value, nextId++);
+        root = insert(root, interval);
+        byStart.add(interval);
+    }
+
+    //Remove one interval with exactly these bounds holding this value. Returns false if there is none.
+    public boolean remove(long start, long end, T value) {
+        Node<T> node = root;
+        while (node != null && !node.contains(start, end)) {
+            node = end <= node.center ? node.left : node.right;
+        }
+        if (node == null) {
+            return false;
+        }
+        for (Interval<T> interval : node.byStart.subSet(probe(start, Long.MIN_VALUE), true,
+                probe(start, Long.MAX_VALUE), true)) {
+            if (interval.end == end && interval.value.equals(value)) {
+                node.byStart.remove(interval);
+                node.byEnd.remove(interval);
+                byStart.remove(interval);
+                if (node.byStart.isEmpty()) {
+                    root = removeNode(root, node.center);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Every interval that contains the point
+    public List<T> stab(long point) {
+        return overlapping(point, point + 1);
+    }
+
+    //Every interval that shares at least one coordinate with [from, to)
+    public List<T> overlapping(long from, long to) {
+        List<T> matches = new ArrayList<>();
+        forEachOverlapping(from, to, matches::add);
+        return matches;
+    }
+
+    //Those containing 'from', then those starting inside the range. The two sets are disjoint.
+    public void forEachOverlapping(long from, long to, Consumer<? super T> action) {
+        if (to <= from) {
+            return;
+        }
+        stab(from, action);
+        for (Interval<T> interval : byStart.subSet(probe(from, Long.MAX_VALUE), false, probe(to, Long.MIN_VALUE), false)) {
+            action.accept(interval.value);
+        }
+    }
+
+    public int size() {
+        return byStart.size();
+    }
+
+    public boolean isEmpty() {
+        return byStart.isEmpty();
+    }
+
+    //Every interval at a node contains its center, so left of the center the ones starting early enough contain
+    //the point, and right of it the ones ending late enough do. Either way the scan stops at the first miss.
+    private void stab(long point, Consumer<? super T> action) {
+        Node<T> node = root;
+        while (node != null) {
+            if (point < node.center) {
+                for (Interval<T> interval : node.byStart) {
+                    if (interval.start > point) {
+                        break;
+                    }
+                    action.accept(interval.value);
+                }
+                node = node.left;
+            } else {
+                for (Interval<T> interval : node.byEnd) {
+                    if (interval.end <= point) {
+                        break;
+                    }
+                    action.accept(interval.value);
+                }
+                //Nothing below contains the center itself
+                node = point == node.center ? null : node.right;
+            }
+        }
+    }
+
+    //File the interval at the first node on its path whose center it contains. If there is none it lies in a gap
+    //between centers, so a new node centered on its start goes exactly there.
+    private Node<T> insert(Node<T> node, Interval<T> interval) {
+        if (node == null) {
+            Node<T> added = new Node<>(interval.start, nextPriority());
+            added.add(interval);
+            return added;
+        }
+        if (node.contains(interval.start, interval.end)) {
+            node.add(interval);
+            return node;
+        }
+        if (interval.end <= node.center) {
+            node.left = insert(node.left, interval);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, interval);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    //Drop the node with this center, which holds no intervals. Everything left of it ends before its center and
+    //everything right of it starts after, so merging the two sides never moves an interval.
+    private Node<T> removeNode(Node<T> node, long center) {
+        if (center < node.center) {
+            node.left = removeNode(node.left, center);
+        } else if (center > node.center) {
+            node.right = removeNode(node.right, center);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        return right;
+    }
+
+    //The left child rises above the node. Intervals at the node that also contain the risen center now meet it
+    //first, so they move up; they are the ones starting at or before it. A node left with nothing is dropped.
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        moveUp(node, pivot, node.byStart.headSet(probe(pivot.center, Long.MAX_VALUE), true));
+        if (node.byStart.isEmpty()) {
+            pivot.right = merge(node.left, node.right);
+        }
+        return pivot;
+    }
+
+    //Mirror image: the intervals that move up are the ones ending after the risen center
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        moveUp(node, pivot, node.byEnd.headSet(endProbe(pivot.center), false));
+        if (node.byStart.isEmpty()) {
+            pivot.left = merge(node.left, node.right);
+        }
+        return pivot;
+    }
+
+    private void moveUp(Node<T> from, Node<T> to, NavigableSet<Interval<T>> moving) {
+        for (Interval<T> interval : new ArrayList<>(moving)) {
+            from.byStart.remove(interval);
+            from.byEnd.remove(interval);
+            to.add(interval);
+        }
+    }
+
+    //Sorts before (id MIN_VALUE) or after (id MAX_VALUE) every interval with this start
+    private static <T> Interval<T> probe(long start, long id) {
+        return new Interval<>(start, start, null, id);
+    }
+
+    //Sorts before every interval ending at 'end' in BY_END_DESCENDING, after every one ending later
+    private static <T> Interval<T> endProbe(long end) {
+        return new Interval<>(end, end, null, Long.MIN_VALUE);
+    }
+
+    //xorshift is plenty to keep the treap balanced in expectation
+    private long nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    private static final class Interval<T> {
+        private final long start;
+        private final long end;
+        private final T value;
+        private final long id; //insertion order, so equal intervals stay distinct in the sorted sets
+
+        Interval(long start, long end, T value, long id) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    private static class Node<T> {
+        private final long center;
+        private final long priority;
+        private final NavigableSet<Interval<T>> byStart = new TreeSet<>(BY_START);
+        private final NavigableSet<Interval<T>> byEnd = new TreeSet<>(BY_END_DESCENDING);
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(long center, long priority) {
+            this.center = center;
+            this.priority = priority;
+        }
+
+        boolean contains(long start, long end) {
+            return start <= center && center < end;
+        }
+
+        void add(Interval<T> interval) {
+            byStart.add(interval);
+            byEnd.add(interval);
+        }
+    }
+}
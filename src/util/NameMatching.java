@@ -0,0 +1,143 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+//Helpers for deciding whether two typed names probably belong to the same person.
+//Soundex gives a coarse phonetic code that survives most spelling slips and is cheap enough to use as a
+//hash key; Jaro-Winkler gives a fine 0..1 similarity for the few candidates that share a code.
+public final class NameMatching {
+    //Soundex digit for each letter a..z. 0 marks vowels and y, which separate repeated codes;
+    //h and w are marked -1 because they do not.
+    private static final int[] SOUNDEX = {
+            0, 1, 2, 3, 0, 1, 2, -1, 0, 2, 2, 4, 5, 5, 0, 1, 2, 6, 2, 3, 0, 1, -1, 2, 0, 2};
+
+    private NameMatching() {
+    }
+
+    //Lower-case name parts with punctuation dropped, e.g. "O'Brien,  Mary-Ann" -> [obrien, maryann]
+    public static List<String> nameTokens(String name) {
+        List<String> tokens = new ArrayList<>();
+        if (name == null) {
+            return tokens;
+        }
+        for (String part : name.trim().split("\\s+")) {
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                if (Character.isLetter(c)) {
+                    token.append(Character.toLowerCase(c));
+                }
+            }
+            if (token.length() > 0) {
+                tokens.add(token.toString());
+            }
+        }
+        return tokens;
+    }
+
+    //Name tokens in alphabetical order and joined, so "Mary Smith" and "Smith, Mary" compare equal
+    public static String normalize(String name) {
+        List<String> tokens = nameTokens(name);
+        String[] sorted = tokens.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return String.join(" ", sorted);
+    }
+
+    //American Soundex: first letter plus three digits, e.g. Robert and Rupert both give R163.
+    //Returns an empty string if the word has no letters a..z.
+    public static String soundex(String word) {
+        if (word == null) {
+            return "";
+        }
+        char[] code = new char[4];
+        int length = 0;
+        int previous = 0;
+        for (int i = 0; i < word.length() && length < 4; i++) {
+            char c = Character.toLowerCase(word.charAt(i));
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            int digit = SOUNDEX[c - 'a'];
+            if (length == 0) {
+                code[length++] = Character.toUpperCase(c);
+                previous = digit;
+                continue;
+            }
+            if (digit == -1) {
+                continue;
+            }
+            if (digit != 0 && digit != previous) {
+                code[length++] = (char) ('0' + digit);
+            }
+            previous = digit;
+        }
+        if (length == 0) {
+            return "";
+        }
+        while (length < 4) {
+            code[length++] = '0';
+        }
+        return new String(code);
+    }
+
+    //Jaro-Winkler similarity in [0, 1], 1 meaning identical. Case-insensitive.
+    //Strings that agree on their first few characters score higher, which suits names.
+    public static double jaroWinkler(String a, String b) {
+        String s1 = a.toLowerCase(Locale.ROOT);
+        String s2 = b.toLowerCase(Locale.ROOT);
+        if (s1.equals(s2)) {
+            return 1.0;
+        }
+        int len1 = s1.length();
+        int len2 = s2.length();
+        if (len1 == 0 || len2 == 0) {
+            return 0.0;
+        }
+
+        int window = Math.max(0, Math.max(len1, len2) / 2 - 1);
+        boolean[] matched1 = new boolean[len1];
+        boolean[] matched2 = new boolean[len2];
+        int matches = 0;
+        for (int i = 0; i < len1; i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(len2 - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < len1; i++) {
+            if (!matched1[i]) {
+                continue;
+            }
+            while (!matched2[j]) {
+                j++;
+            }
+            if (s1.charAt(i) != s2.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+
+        double m = matches;
+        double jaro = (m / len1 + m / len2 + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(len1, len2)) && s1.charAt(prefix) == s2.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Interns strings from a small vocabulary (departments, drug names, ...) into dense int codes, so a million
+//records holding the same few hundred values keep one copy of each and compare by int.
+//Every code also belongs to a folded group: codes whose values differ only in case or surrounding spaces share
+//a group, which lets case-insensitive lookups compare ints as well.
+//Thread-safe. Lookups of known values take no lock; only the first sighting of a value does.
+public class StringDictionary {
+    public static final int NONE = -1; //code of null, and the result of looking up an unknown value
+
+    private final Map<String, Integer> codes; //value -> code
+    private final Map<String, Integer> groups; //folded value -> group
+    private volatile String[] values = new String[16]; //code -> value
+    private volatile int[] groupOfCode = new int[16]; //code -> group
+    private int size;
+
+    public StringDictionary() {
+        this.codes = new ConcurrentHashMap<>();
+        this.groups = new ConcurrentHashMap<>();
+    }
+
+    //The code for a value, adding it on first sight. Null maps to NONE.
+    public int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    //The code for a value already in the dictionary, or NONE. Never adds.
+    public int find(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NONE;
+    }
+
+    public String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    //The folded group of a code, or NONE for NONE
+    public int groupOf(int code) {
+        return code == NONE ? NONE : groupOfCode[code];
+    }
+
+    //The folded group matching a value case-insensitively, or NONE if no such value was ever encoded
+    public int findGroup(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer group = groups.get(fold(value));
+        return group != null ? group : NONE;
+    }
+
+    public int size() {
+        synchronized (this) {
+            return size;
+        }
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        String[] currentValues = values;
+        int[] currentGroups = groupOfCode;
+        if (code == currentValues.length) {
+            currentValues = Arrays.copyOf(currentValues, code * 2);
+            currentGroups = Arrays.copyOf(currentGroups, code * 2);
+        }
+        String folded = fold(value);
+        Integer group = groups.get(folded);
+        if (group == null) {
+            group = groups.size();
+            groups.put(folded, group);
+        }
+        currentValues[code] = value;
+        currentGroups[code] = group;
+        //Publish the arrays before the code, so any thread that can see the code can also decode it
+        values = currentValues;
+        groupOfCode = currentGroups;
+        size++;
+        codes.put(value, code);
+        return code;
+    }
+
+    private static String fold(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,239 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//Hierarchical timing wheel. Scheduling and cancelling are O(1), and advancing the clock only touches
+//buckets that are actually due, so a quiet wheel costs nothing no matter how many timers it holds.
+//The wheel has no thread of its own: the owner calls advance(now) from its ticker.
+public class TimingWheel<T> {
+    private final Object lock = new Object();
+    private final Level root;
+    //Lower levels go first on a tie so a due bottom bucket is drained before anything cascades into its slot
+    private final PriorityQueue<Bucket<T>> dueBuckets = new PriorityQueue<>(
+            Comparator.<Bucket<T>>comparingLong(bucket -> bucket.expiration).thenComparingInt(bucket -> bucket.depth));
+    private final List<Timeout<T>> overdue = new ArrayList<>();
+    private int size;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size greater than 1");
+        }
+        this.root = new Level(tickMillis, wheelSize, startMillis, 0);
+    }
+
+    //Schedule an item to expire at the given time. Deadlines already in the past fire on the next advance.
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        synchronized (lock) {
+            Timeout<T> timeout = new Timeout<>(this, item, deadlineMillis);
+            if (!root.add(timeout)) {
+                overdue.add(timeout);
+            }
+            size++;
+            return timeout;
+        }
+    }
+
+    //Move the clock forward and return every timer whose deadline is now due. Handing back the timers rather
+    //than their items lets the owner tell a fired timer from one armed again for the same item since.
+    public List<Timeout<T>> advance(long nowMillis) {
+        synchronized (lock) {
+            List<Timeout<T>> expired = new ArrayList<>();
+            for (Timeout<T> timeout : overdue) {
+                //Cancelled overdue timers are left in the list and dropped here rather than searched for
+                if (!timeout.cancelled) {
+                    timeout.fired = true;
+                    expired.add(timeout);
+                    size--;
+                }
+            }
+            overdue.clear();
+
+            while (!dueBuckets.isEmpty() && dueBuckets.peek().expiration <= nowMillis) {
+                Bucket<T> bucket = dueBuckets.poll();
+                root.advanceClock(bucket.expiration);
+                for (Timeout<T> timeout : bucket.flush()) {
+                    //Timers from higher levels cascade down; those that can't be placed are due
+                    if (!root.add(timeout)) {
+                        timeout.fired = true;
+                        expired.add(timeout);
+                        size--;
+                    }
+                }
+            }
+            root.advanceClock(nowMillis);
+            return expired;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    private void cancel(Timeout<T> timeout) {
+        synchronized (lock) {
+            if (timeout.cancelled) {
+                return;
+            }
+            timeout.cancelled = true;
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                size--;
+            } else if (!timeout.fired) {
+                //Still waiting in the overdue list; advance() skips it
+                size--;
+            }
+        }
+    }
+
+    //Handle returned by schedule(). Cancelling unlinks the timer from its bucket in constant time.
+    public static class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadlineMillis;
+        private boolean cancelled;
+        private boolean fired;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineMillis) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public void cancel() {
+            wheel.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            synchronized (wheel.lock) {
+                return cancelled;
+            }
+        }
+    }
+
+    //One level of the hierarchy. Each slot of a level spans a whole rotation of the level below it.
+    private class Level {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long intervalMillis;
+        private final int depth;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        Level(long tickMillis, int wheelSize, long startMillis, int depth) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.depth = depth;
+            this.buckets = newBuckets(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>(depth);
+            }
+            this.currentTime = startMillis - (startMillis % tickMillis);
+        }
+
+        //Returns false when the timer is already due and can't be placed on any level
+        boolean add(Timeout<T> timeout) {
+            long deadline = timeout.deadlineMillis;
+            if (deadline <= currentTime) {
+                return false;
+            }
+            if (deadline < currentTime + intervalMillis) {
+                long virtualId = deadline / tickMillis;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(timeout);
+                //Bottom buckets fire once their whole span has passed, so timers never fire early.
+                //Higher buckets are due at the start of their span, when they cascade down a level.
+                long expiration = depth == 0 ? (virtualId + 1) * tickMillis : virtualId * tickMillis;
+                if (bucket.setExpiration(expiration)) {
+                    dueBuckets.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(intervalMillis, wheelSize, currentTime, depth + 1);
+            }
+            return overflow.add(timeout);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Bucket<T>[] newBuckets(int count) {
+            return (Bucket<T>[]) new Bucket<?>[count];
+        }
+
+        void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    //Intrusive doubly linked list so a cancelled timer can be unlinked without a search
+    private static class Bucket<T> {
+        private final Timeout<T> head = new Timeout<>(null, null, 0);
+        private final int depth;
+        private long expiration = -1;
+
+        Bucket(int depth) {
+            this.depth = depth;
+            head.prev = head;
+            head.next = head;
+        }
+
+        boolean setExpiration(long expiration) {
+            if (this.expiration == expiration) {
+                return false;
+            }
+            this.expiration = expiration;
+            return true;
+        }
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        List<Timeout<T>> flush() {
+            List<Timeout<T>> timeouts = new ArrayList<>();
+            Timeout<T> node = head.next;
+            while (node != head) {
+                Timeout<T> next = node.next;
+                remove(node);
+                timeouts.add(node);
+                node = next;
+            }
+            expiration = -1;
+            return timeouts;
+        }
+    }
+}